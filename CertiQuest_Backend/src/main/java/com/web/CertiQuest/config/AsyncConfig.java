@@ -0,0 +1,90 @@
+package com.web.CertiQuest.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ForkJoinPool;
+
+@Configuration
+@EnableScheduling
+public class AsyncConfig {
+
+    /**
+     * Bounded pool for background quiz generation jobs. When both the workers
+     * and the queue are full, new submissions are rejected instead of piling up.
+     */
+    @Bean(name = "quizGenerationExecutor")
+    public ThreadPoolTaskExecutor quizGenerationExecutor(
+            @Value("${quiz.jobs.pool-size:4}") int poolSize,
+            @Value("${quiz.jobs.queue-capacity:50}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("quiz-gen-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Runs chunks of a large AI generation request in parallel. The pool size
+     * is the cap on concurrent chunk calls to Cohere.
+     */
+    @Bean(name = "cohereChunkExecutor")
+    public ThreadPoolTaskExecutor cohereChunkExecutor(
+            @Value("${quiz.generation.max-parallel-chunks:4}") int maxParallelChunks) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(maxParallelChunks);
+        executor.setMaxPoolSize(maxParallelChunks);
+        executor.setThreadNamePrefix("cohere-chunk-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Runs OCR of scanned PDF pages. Each thread borrows one Tesseract engine
+     * from OcrWorkerPool, so the pool size is also the number of engines.
+     */
+    @Bean(name = "ocrExecutor")
+    public ThreadPoolTaskExecutor ocrExecutor(@Value("${ocr.workers:4}") int workers) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setThreadNamePrefix("ocr-");
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Workers for queued PDF-to-quiz ingestion. Each job holds one worker for its
+     * whole extraction; OCR of its pages fans out to the ocrExecutor.
+     */
+    @Bean(name = "pdfIngestionExecutor")
+    public ThreadPoolTaskExecutor pdfIngestionExecutor(
+            @Value("${pdf.jobs.pool-size:2}") int poolSize,
+            @Value("${pdf.jobs.queue-capacity:20}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("pdf-ingest-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(60);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * Grades bulk submissions in parallel. Grading is pure CPU work against an
+     * answer key already in memory, so the default is one thread per core.
+     */
+    @Bean(name = "gradingPool", destroyMethod = "shutdown")
+    public ForkJoinPool gradingPool(@Value("${quiz.grading.parallelism:0}") int parallelism) {
+        return new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+}
@@ -0,0 +1,50 @@
+package com.web.CertiQuest.config;
+
+import org.apache.kafka.clients.admin.NewTopic;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.kafka.ConcurrentKafkaListenerContainerFactoryConfigurer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.util.backoff.FixedBackOff;
+
+@Configuration
+public class KafkaConfig {
+
+    // Topics are created on startup by Spring Boot's KafkaAdmin if the broker does not have them yet
+
+    @Bean
+    @ConditionalOnProperty(name = "quiz.submissions.mode", havingValue = "kafka")
+    public NewTopic quizSubmissionsTopic(@Value("${quiz.submissions.topic:quiz-submissions}") String topic,
+                                         @Value("${quiz.submissions.partitions:3}") int partitions) {
+        return TopicBuilder.name(topic).partitions(partitions).build();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "points.cache.invalidation", havingValue = "kafka")
+    public NewTopic pointsInvalidationTopic(@Value("${points.cache.invalidation-topic:points-invalidation}") String topic) {
+        return TopicBuilder.name(topic).partitions(1).build();
+    }
+
+    /**
+     * Container factory for SubmissionEventListener only: Boot's settings, plus a handler
+     * that retries a failed batch without giving up. The only failures left there are
+     * outages, and skipping would lose submissions. Other listeners keep the default
+     * handler.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "quiz.submissions.mode", havingValue = "kafka")
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> submissionListenerContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> consumerFactory,
+            @Value("${quiz.submissions.retry-interval-ms:5000}") long retryIntervalMs) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, consumerFactory);
+        factory.setCommonErrorHandler(new DefaultErrorHandler(new FixedBackOff(retryIntervalMs, FixedBackOff.UNLIMITED_ATTEMPTS)));
+        return factory;
+    }
+}
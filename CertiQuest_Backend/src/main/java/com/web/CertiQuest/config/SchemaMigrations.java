@@ -0,0 +1,97 @@
+package com.web.CertiQuest.config;
+
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * One-time changes to existing data and schema that Hibernate's ddl-auto=update
+ * cannot make on its own. Runs after Hibernate has updated the schema and before
+ * the application serves requests. Every step is idempotent, so it is safe on
+ * every start; an advisory lock keeps nodes starting together from running them
+ * at the same time.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+public class SchemaMigrations {
+
+    private static final Logger logger = LoggerFactory.getLogger(SchemaMigrations.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    void migrate() {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.queryForList("SELECT pg_advisory_xact_lock(hashtext('certiquest-schema-migrations'))");
+
+            // Replaced by idx_questions_pool_unowned_random_key, which also covers quiz_id
+            step("drop idx_questions_pool_random_key",
+                    "DROP INDEX IF EXISTS idx_questions_pool_random_key");
+
+            // Joins used to append to the participant list without a check, so a user could be
+            // listed twice; extra rows go (recounting their quizzes) before the constraint is added
+            step("deduplicate quiz_participants", """
+                    WITH removed AS (
+                        DELETE FROM quiz_participants dup USING quiz_participants kept
+                        WHERE dup.quiz_id = kept.quiz_id AND dup.participant_id = kept.participant_id
+                          AND dup.ctid > kept.ctid
+                        RETURNING dup.quiz_id
+                    )
+                    UPDATE quiz q SET participant_count =
+                        (SELECT count(DISTINCT p.participant_id) FROM quiz_participants p WHERE p.quiz_id = q.id)
+                    WHERE q.id IN (SELECT quiz_id FROM removed)
+                    """);
+            addConstraintIfMissing("quiz_participants", "uk_quiz_participant", "UNIQUE (quiz_id, participant_id)");
+            // Quizzes created before participant_count existed
+            step("backfill participant_count", """
+                    UPDATE quiz q SET participant_count =
+                        (SELECT count(*) FROM quiz_participants p WHERE p.quiz_id = q.id)
+                    WHERE q.participant_count IS NULL
+                    """);
+
+            // Racing first requests could create two accounts for one user; the oldest is kept
+            step("deduplicate user_points", """
+                    DELETE FROM user_points dup USING user_points kept
+                    WHERE dup.clerk_id = kept.clerk_id AND dup.id > kept.id
+                    """);
+            addConstraintIfMissing("user_points", "uk_user_points_clerk", "UNIQUE (clerk_id)");
+            step("drop idx_user_points_clerk", "DROP INDEX IF EXISTS idx_user_points_clerk");
+
+            // Accounts older than the ledger, or whose duplicate was just removed, get one entry for
+            // the part of their balance the ledger does not explain. Debits write the balance and
+            // its ledger entry together, so on consistent accounts this inserts nothing
+            step("backfill opening ledger entries", """
+                    INSERT INTO points_transactions (clerk_id, delta, balance_after, reason, created_at)
+                    SELECT up.clerk_id, up.points - COALESCE(t.total, 0), up.points, 'OPENING', clock_timestamp()
+                    FROM user_points up
+                    LEFT JOIN (SELECT clerk_id, SUM(delta) AS total FROM points_transactions GROUP BY clerk_id) t
+                           ON t.clerk_id = up.clerk_id
+                    WHERE up.points <> COALESCE(t.total, 0)
+                    """);
+        });
+    }
+
+    private void step(String name, String sql) {
+        int rows = jdbcTemplate.update(sql);
+        if (rows > 0) {
+            logger.info("Schema migration '{}': {} rows changed", name, rows);
+        }
+    }
+
+    // ddl-auto=update cannot add a constraint the existing rows violate, so it is added here once they are fixed
+    private void addConstraintIfMissing(String table, String name, String definition) {
+        Integer existing = jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM pg_constraint WHERE conname = ?", Integer.class, name);
+        if (existing != null && existing > 0) return;
+        jdbcTemplate.execute("ALTER TABLE " + table + " ADD CONSTRAINT " + name + " " + definition);
+        logger.info("Schema migration: added constraint {} on {}", name, table);
+    }
+}
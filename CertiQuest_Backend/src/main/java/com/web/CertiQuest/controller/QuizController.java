@@ -1,17 +1,23 @@
 package com.web.CertiQuest.controller;
 
+import com.web.CertiQuest.dto.BulkSubmissionDto;
 import com.web.CertiQuest.dto.QuizDto;
 import com.web.CertiQuest.dto.QuizSubmissionDto;
 import com.web.CertiQuest.model.Quiz;
 import com.web.CertiQuest.model.QuizEvent;
+import com.web.CertiQuest.model.QuizJob;
 import com.web.CertiQuest.model.QuizResult;
+import com.web.CertiQuest.service.BulkGradingService;
+import com.web.CertiQuest.service.QuizJobService;
 import com.web.CertiQuest.service.QuizService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.security.Principal;
 import java.util.List;
 import java.util.Map;
 
@@ -21,11 +27,19 @@ public class QuizController {
 
     @Autowired
     private QuizService quizService;
+    @Autowired
+    private QuizJobService quizJobService;
+    @Autowired
+    private BulkGradingService bulkGradingService;
 
 
     // ===== Create Quiz =====
     @PostMapping("/create")
-    public ResponseEntity<?> createQuiz(@RequestBody QuizDto request) {
+    public ResponseEntity<?> createQuiz(@RequestBody QuizDto request,
+                                        @RequestParam(value = "async", defaultValue = "false") boolean async) {
+        if (async) {
+            return submitQuizJob(request);
+        }
         try {
             Quiz quiz = quizService.createQuiz(
                     request.getTitle(),
@@ -43,6 +57,41 @@ public class QuizController {
         }
     }
 
+    private ResponseEntity<?> submitQuizJob(QuizDto request) {
+        try {
+            QuizJob job = quizJobService.submitQuizCreation(
+                    request.getTitle(),
+                    request.getCategory(),
+                    request.getDifficulty(),
+                    request.getNoOfQuestions(),
+                    request.getCreatedBy()
+            );
+
+            return ResponseEntity.accepted().body(Map.of(
+                    "jobId", job.getId(),
+                    "status", job.getStatus()
+            ));
+        } catch (TaskRejectedException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("error", "Too many quizzes are being generated, please retry shortly"));
+        } catch (RuntimeException e) {
+            return ResponseEntity
+                    .badRequest()
+                    .body(Map.of("error", e.getMessage()));
+        }
+    }
+
+    // ===== Quiz Creation Job Status =====
+    // Jobs of other users are reported as not found
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<?> getQuizJob(@PathVariable String jobId, Principal principal) {
+        return quizJobService.getJob(jobId)
+                .filter(job -> principal != null && principal.getName().equals(job.getCreatedBy()))
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(Map.of("error", "Job not found: " + jobId)));
+    }
+
     // ===== Create Quiz from PDF =====
     @PostMapping("/create-quiz-pdf")
     public ResponseEntity<?> uploadQuizPdf(
@@ -50,8 +99,12 @@ public class QuizController {
             @RequestParam(value = "title", required = false) String title,
             @RequestParam(value = "category", required = false) String category,
             @RequestParam(value = "difficulty", required = false) String difficulty,
-            @RequestParam("createdBy") String createdBy
+            @RequestParam("createdBy") String createdBy,
+            @RequestParam(value = "async", defaultValue = "false") boolean async
     ) {
+        if (async) {
+            return submitPdfJob(pdfFile, title, category, difficulty, createdBy);
+        }
         try {
             Quiz savedQuiz = quizService.createQuizFromPdf(pdfFile, title, category, difficulty, createdBy);
 
@@ -61,6 +114,23 @@ public class QuizController {
         }
     }
 
+    private ResponseEntity<?> submitPdfJob(MultipartFile pdfFile, String title, String category,
+                                           String difficulty, String createdBy) {
+        try {
+            QuizJob job = quizJobService.submitPdfIngestion(pdfFile, title, category, difficulty, createdBy);
+
+            return ResponseEntity.accepted().body(Map.of(
+                    "jobId", job.getId(),
+                    "status", job.getStatus()
+            ));
+        } catch (TaskRejectedException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(Map.of("error", "Too many PDFs are being processed, please retry shortly"));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
     // ===== Update Quiz =====
     @PutMapping("/update")
     public ResponseEntity<?> updateQuiz(
@@ -100,14 +170,24 @@ public class QuizController {
     public ResponseEntity<?> submitQuiz(
             @PathVariable int quizId,
             @RequestBody QuizSubmissionDto submission,
-            @RequestParam String userId
+            @RequestParam String userId,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey
     ) {
+        if (submission.getQuizId() != quizId) {
+            return ResponseEntity.badRequest().body(Map.of("error", "quizId in the body does not match the path"));
+        }
+
         Quiz quiz = quizService.getQuizById(quizId);
-        if (!quiz.getParticipants().contains(userId) && !quiz.getCreatedBy().equals(userId)) {
+        if (!quiz.getCreatedBy().equals(userId) && !quizService.isParticipant(quizId, userId)) {
             return ResponseEntity.status(403).body(Map.of("error", "You are not allowed to submit this quiz"));
         }
 
-        QuizResult savedResult = quizService.evaluateAndSaveResult(submission, userId);
+        QuizResult savedResult;
+        try {
+            savedResult = quizService.evaluateAndSaveResult(submission, userId, idempotencyKey);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
 
         return ResponseEntity.ok(Map.of(
                 "score", savedResult.getScore(),
@@ -115,6 +195,35 @@ public class QuizController {
         ));
     }
 
+    // ===== Bulk Submit (instructor) =====
+    @PostMapping("/{quizId}/submit/bulk")
+    public ResponseEntity<?> submitQuizBulk(
+            @PathVariable int quizId,
+            @RequestBody BulkSubmissionDto bulk,
+            @RequestParam String userId
+    ) {
+        Quiz quiz = quizService.getQuizById(quizId);
+        if (!quiz.getCreatedBy().equals(userId)) {
+            return ResponseEntity.status(403).body(Map.of("error", "Only the quiz creator can submit in bulk"));
+        }
+
+        try {
+            List<QuizResult> results = bulkGradingService.gradeAll(quizId, bulk);
+
+            return ResponseEntity.ok(Map.of(
+                    "graded", results.size(),
+                    "results", results.stream()
+                            .map(r -> Map.of(
+                                    "userId", r.getUserId(),
+                                    "score", r.getScore(),
+                                    "total", r.getTotalQuestions()))
+                            .toList()
+            ));
+        } catch (RuntimeException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        }
+    }
+
     // ===== Get User Results =====
     @GetMapping("/results/{userId}")
     public ResponseEntity<?> getUserResults(@PathVariable String userId) {
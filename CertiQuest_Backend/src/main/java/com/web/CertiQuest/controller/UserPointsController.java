@@ -1,7 +1,7 @@
 package com.web.CertiQuest.controller;
 
 import com.web.CertiQuest.dto.UserPointsDto;
-import com.web.CertiQuest.model.UserPoints;
+import com.web.CertiQuest.service.PointsBalanceCache;
 import com.web.CertiQuest.service.UserPointsService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -23,12 +23,12 @@ public class UserPointsController {
 
     @GetMapping("/points")
     public ResponseEntity<?> getUserPoints() {
-        Optional<UserPoints> pointsOpt = userPointsService.getUserPointsForCurrentUser();
+        Optional<PointsBalanceCache.Balance> pointsOpt = userPointsService.getBalanceForCurrentUser();
         if (pointsOpt.isEmpty()) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body("User not logged in");
         }
         UserPointsDto userPointsDto = new UserPointsDto();
-        userPointsDto.setPoints(pointsOpt.get().getPoints());
+        userPointsDto.setPoints(pointsOpt.get().points());
         return ResponseEntity.ok(userPointsDto);
     }
 
@@ -0,0 +1,28 @@
+package com.web.CertiQuest.dao;
+
+import com.web.CertiQuest.model.PointsSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+
+@Repository
+public interface PointsSnapshotDao extends JpaRepository<PointsSnapshot, Long> {
+
+    // One snapshot per account with ledger entries since the last run, taken from its newest
+    // entry. Entries newer than settledBefore wait for the next run, so a transaction that
+    // commits late is not skipped past.
+    @Modifying
+    @Query(value = """
+       INSERT INTO points_snapshots (clerk_id, balance, last_transaction_id, taken_at)
+       SELECT DISTINCT ON (t.clerk_id) t.clerk_id, t.balance_after, t.id, now()
+       FROM points_transactions t
+       WHERE t.id > COALESCE((SELECT max(s.last_transaction_id) FROM points_snapshots s), 0)
+         AND t.created_at < :settledBefore
+       ORDER BY t.clerk_id, t.id DESC
+       """, nativeQuery = true)
+    int snapshotChangedBalances(@Param("settledBefore") Instant settledBefore);
+}
@@ -0,0 +1,52 @@
+package com.web.CertiQuest.dao;
+
+import com.web.CertiQuest.model.PointsTransaction;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface PointsTransactionDao extends JpaRepository<PointsTransaction, Long> {
+
+    // Conditional debit and its ledger entry in one statement. Returns one row of ledger id,
+    // new balance and plan; none if the balance is too low (or there is no account). The row lock is held until the caller's transaction commits,
+    // so callers debit as their last step. clock_timestamp() records when the debit ran,
+    // not when the transaction started.
+    @Query(value = """
+       WITH debited AS (
+           UPDATE user_points SET points = points - :amount
+           WHERE clerk_id = :clerkId AND points >= :amount
+           RETURNING points, plan
+       ), entry AS (
+           INSERT INTO points_transactions (clerk_id, delta, balance_after, reason, created_at)
+           SELECT :clerkId, -:amount, points, :reason, clock_timestamp() FROM debited
+           RETURNING id
+       )
+       SELECT entry.id, debited.points, debited.plan FROM entry, debited
+       """, nativeQuery = true)
+    List<Object[]> debit(@Param("clerkId") String clerkId,
+                            @Param("amount") int amount,
+                            @Param("reason") String reason);
+
+    // Credit and optional plan change with its ledger entry, returning the same row as debit;
+    // none if there is no account. An empty plan keeps the current one.
+    @Query(value = """
+       WITH credited AS (
+           UPDATE user_points SET points = points + :amount, plan = COALESCE(NULLIF(:plan, ''), plan)
+           WHERE clerk_id = :clerkId
+           RETURNING points, plan
+       ), entry AS (
+           INSERT INTO points_transactions (clerk_id, delta, balance_after, reason, created_at)
+           SELECT :clerkId, :amount, points, :reason, clock_timestamp() FROM credited
+           RETURNING id
+       )
+       SELECT entry.id, credited.points, credited.plan FROM entry, credited
+       """, nativeQuery = true)
+    List<Object[]> credit(@Param("clerkId") String clerkId,
+                             @Param("amount") int amount,
+                             @Param("plan") String plan,
+                             @Param("reason") String reason);
+}
@@ -2,6 +2,9 @@ package com.web.CertiQuest.dao;
 
 import com.web.CertiQuest.model.Quiz;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -10,4 +13,22 @@ import java.util.List;
 public interface QuizDao extends JpaRepository<Quiz, Integer> {
 
     List<Quiz> findByCreatedBy(String clerkId);
+
+    // Membership check against the (quiz_id, participant_id) unique index
+    @Query(value = """
+       SELECT EXISTS (SELECT 1 FROM quiz_participants WHERE quiz_id = :quizId AND participant_id = :participantId)
+       """, nativeQuery = true)
+    boolean isParticipant(@Param("quizId") int quizId, @Param("participantId") String participantId);
+
+    // Adds the participant unless already present and bumps the count in the same statement; 1 if added
+    @Modifying
+    @Query(value = """
+       WITH added AS (
+           INSERT INTO quiz_participants (quiz_id, participant_id) VALUES (:quizId, :participantId)
+           ON CONFLICT (quiz_id, participant_id) DO NOTHING
+           RETURNING quiz_id
+       )
+       UPDATE quiz SET participant_count = participant_count + 1 WHERE id IN (SELECT quiz_id FROM added)
+       """, nativeQuery = true)
+    int addParticipantIfAbsent(@Param("quizId") int quizId, @Param("participantId") String participantId);
 }
@@ -1,13 +1,85 @@
 package com.web.CertiQuest.dao;
 
 import com.web.CertiQuest.model.QuizQuestion;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface QuizQuestionDao extends JpaRepository<QuizQuestion,Integer> {
 
     List<QuizQuestion> findByCategoryAndDifficultyLevel(String category, String difficultyLevel);
+
+    long countByCategoryAndDifficultyLevel(String category, String difficultyLevel);
+
+    // Random sampling: ids of pool questions not in any quiz, from a random point of the
+    // random_key range onwards (index range scan)
+    @Query("""
+       SELECT q.id FROM QuizQuestion q
+       WHERE q.category = :category AND q.difficultyLevel = :difficulty AND q.randomKey >= :from
+         AND q.quiz IS NULL
+       ORDER BY q.randomKey
+       """)
+    List<Integer> findSampleIdsFrom(@Param("category") String category,
+                                    @Param("difficulty") String difficulty,
+                                    @Param("from") double from,
+                                    Pageable pageable);
+
+    // Wrap-around part of the sample, below the random starting point
+    @Query("""
+       SELECT q.id FROM QuizQuestion q
+       WHERE q.category = :category AND q.difficultyLevel = :difficulty AND q.randomKey < :from
+         AND q.quiz IS NULL
+       ORDER BY q.randomKey
+       """)
+    List<Integer> findSampleIdsBefore(@Param("category") String category,
+                                      @Param("difficulty") String difficulty,
+                                      @Param("from") double from,
+                                      Pageable pageable);
+
+    // Loads pool questions that are not part of any quiz, with their options in one query
+    @Query("SELECT DISTINCT q FROM QuizQuestion q LEFT JOIN FETCH q.options WHERE q.id IN :ids AND q.quiz IS NULL")
+    List<QuizQuestion> findPoolWithOptionsByIdIn(@Param("ids") Collection<Integer> ids);
+
+    // Rows for the near-duplicate index: id, category, difficulty, text and owning quiz id (null for pool-only)
+    @Query("""
+       SELECT q.id, q.category, q.difficultyLevel, q.question, qz.id
+       FROM QuizQuestion q LEFT JOIN q.quiz qz
+       WHERE q.id > :afterId
+       ORDER BY q.id
+       """)
+    List<Object[]> findIndexRowsAfter(@Param("afterId") int afterId, Pageable pageable);
+
+    // Answer key of a quiz: question id and correct answer only, without options
+    @Query("SELECT q.id, q.correctAnswer FROM QuizQuestion q WHERE q.quiz.id = :quizId")
+    List<Object[]> findAnswerKeyByQuizId(@Param("quizId") int quizId);
+
+    @Query("SELECT q.id, q.correctAnswer FROM QuizQuestion q WHERE q.id IN :ids")
+    List<Object[]> findAnswerKeyByIdIn(@Param("ids") Collection<Integer> ids);
+
+    // Deletes those of the given questions (with their options) that still belong to no
+    // quiz. The rows are locked first, so one attached to a quiz meanwhile is skipped.
+    @Transactional
+    @Query(value = """
+       WITH doomed AS (
+           SELECT id FROM questions WHERE id IN (:ids) AND quiz_id IS NULL FOR UPDATE
+       ), removed_options AS (
+           DELETE FROM question_options WHERE question_id IN (SELECT id FROM doomed)
+       )
+       DELETE FROM questions WHERE id IN (SELECT id FROM doomed)
+       RETURNING id
+       """, nativeQuery = true)
+    List<Integer> deleteUnownedByIdIn(@Param("ids") Collection<Integer> ids);
+
+    // Gives rows created before random_key existed a key so they can be sampled
+    @Modifying
+    @Query(value = "UPDATE questions SET random_key = random() WHERE random_key IS NULL", nativeQuery = true)
+    int backfillRandomKeys();
 }
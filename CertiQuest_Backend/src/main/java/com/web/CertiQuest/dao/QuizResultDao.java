@@ -5,10 +5,12 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface QuizResultDao extends JpaRepository<QuizResult, Integer> {
 
     List<QuizResult> findByUserId(String userId);
     List<QuizResult> findByQuizId(int quizId);
+    Optional<QuizResult> findBySubmissionId(String submissionId);
 }
@@ -0,0 +1,11 @@
+package com.web.CertiQuest.dao;
+
+import com.web.CertiQuest.model.QuizSubmissionDeadLetter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface QuizSubmissionDeadLetterDao extends JpaRepository<QuizSubmissionDeadLetter, Long> {
+
+    boolean existsBySubmissionId(String submissionId);
+}
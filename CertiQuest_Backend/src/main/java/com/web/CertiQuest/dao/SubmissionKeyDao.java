@@ -0,0 +1,35 @@
+package com.web.CertiQuest.dao;
+
+import com.web.CertiQuest.model.SubmissionKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+@Repository
+public interface SubmissionKeyDao extends JpaRepository<SubmissionKey, String> {
+
+    // 1 if the id was reserved now, 0 if another request holds it. A concurrent insert of
+    // the same id waits for that request's transaction and then returns 0 or 1 accordingly
+    @Modifying
+    @Query(value = """
+       INSERT INTO submission_keys (submission_id, quiz_id, user_id, score, total_questions, attempted_at)
+       VALUES (:submissionId, :quizId, :userId, :score, :totalQuestions, :attemptedAt)
+       ON CONFLICT (submission_id) DO NOTHING
+       """, nativeQuery = true)
+    int reserve(@Param("submissionId") String submissionId,
+                @Param("quizId") int quizId,
+                @Param("userId") String userId,
+                @Param("score") int score,
+                @Param("totalQuestions") int totalQuestions,
+                @Param("attemptedAt") Instant attemptedAt);
+
+    @Transactional
+    @Modifying
+    @Query(value = "DELETE FROM submission_keys WHERE attempted_at < :cutoff", nativeQuery = true)
+    int deleteAttemptedBefore(@Param("cutoff") Instant cutoff);
+}
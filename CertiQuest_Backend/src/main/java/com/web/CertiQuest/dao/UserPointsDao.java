@@ -2,12 +2,45 @@ package com.web.CertiQuest.dao;
 
 import com.web.CertiQuest.model.UserPoints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserPointsDao extends JpaRepository<UserPoints, Integer> {
 
     Optional<UserPoints> findByClerkId(String clerkId);
+
+    // Creates the account with its INITIAL ledger entry in one statement, unless it exists.
+    // A concurrent first request for the same user waits for this one, then creates nothing.
+    // Returns 1 if the account was created.
+    @Transactional
+    @Query(value = """
+       WITH created AS (
+           INSERT INTO user_points (clerk_id, points, plan) VALUES (:clerkId, :points, :plan)
+           ON CONFLICT (clerk_id) DO NOTHING
+           RETURNING clerk_id, points
+       ), entry AS (
+           INSERT INTO points_transactions (clerk_id, delta, balance_after, reason, created_at)
+           SELECT clerk_id, points, points, 'INITIAL', clock_timestamp() FROM created
+           RETURNING id
+       )
+       SELECT count(*) FROM entry
+       """, nativeQuery = true)
+    int createIfAbsent(@Param("clerkId") String clerkId,
+                       @Param("points") int points,
+                       @Param("plan") String plan);
+
+    // Points, plan and the id of the latest ledger entry, read in one snapshot
+    @Query(value = """
+       SELECT up.points, up.plan,
+              COALESCE((SELECT max(t.id) FROM points_transactions t WHERE t.clerk_id = up.clerk_id), 0)
+       FROM user_points up
+       WHERE up.clerk_id = :clerkId
+       """, nativeQuery = true)
+    List<Object[]> findBalanceWithVersion(@Param("clerkId") String clerkId);
 }
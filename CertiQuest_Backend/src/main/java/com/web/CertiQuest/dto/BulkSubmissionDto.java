@@ -0,0 +1,36 @@
+package com.web.CertiQuest.dto;
+
+import java.util.List;
+
+public class BulkSubmissionDto {
+    private List<Entry> submissions;
+
+    public List<Entry> getSubmissions() {
+        return submissions;
+    }
+
+    public void setSubmissions(List<Entry> submissions) {
+        this.submissions = submissions;
+    }
+
+    public static class Entry {
+        private String userId;
+        private List<QuizSubmissionDto.UserAnswer> answers;
+
+        public String getUserId() {
+            return userId;
+        }
+
+        public void setUserId(String userId) {
+            this.userId = userId;
+        }
+
+        public List<QuizSubmissionDto.UserAnswer> getAnswers() {
+            return answers;
+        }
+
+        public void setAnswers(List<QuizSubmissionDto.UserAnswer> answers) {
+            this.answers = answers;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.web.CertiQuest.generator;
+
+import java.time.Clock;
+
+/**
+ * Minimal consecutive-failure circuit breaker.
+ *
+ * CLOSED: calls pass; after {@code failureThreshold} failures in a row it opens.
+ * OPEN: calls are refused until {@code openMillis} have passed.
+ * HALF_OPEN: a single trial call is let through; success closes the breaker,
+ * failure opens it again.
+ */
+class CircuitBreaker {
+
+    enum State {
+        CLOSED,
+        HALF_OPEN,
+        OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openMillis;
+    private final Clock clock;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean trialInFlight;
+
+    CircuitBreaker(int failureThreshold, long openMillis, Clock clock) {
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+        this.clock = clock;
+    }
+
+    synchronized boolean tryAcquire() {
+        if (state == State.OPEN && clock.millis() - openedAt >= openMillis) {
+            state = State.HALF_OPEN;
+            trialInFlight = false;
+        }
+        return switch (state) {
+            case CLOSED -> true;
+            case HALF_OPEN -> {
+                if (trialInFlight) yield false;
+                trialInFlight = true;
+                yield true;
+            }
+            case OPEN -> false;
+        };
+    }
+
+    synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        trialInFlight = false;
+        state = State.CLOSED;
+    }
+
+    synchronized void onFailure() {
+        trialInFlight = false;
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = clock.millis();
+        }
+    }
+
+    /**
+     * Give back a permit from tryAcquire without recording an outcome.
+     */
+    synchronized void release() {
+        trialInFlight = false;
+    }
+
+    synchronized State getState() {
+        return state;
+    }
+}
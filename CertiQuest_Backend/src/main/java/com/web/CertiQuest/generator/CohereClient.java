@@ -0,0 +1,114 @@
+package com.web.CertiQuest.generator;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.http.HttpClient;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * HTTP access to Cohere with keep-alive connection reuse, connect/read timeouts,
+ * a bulkhead capping concurrent calls and a circuit breaker. Calls that cannot be
+ * made right now fail fast with GeneratorUnavailableException.
+ */
+@Component
+@ConditionalOnProperty(name = "quiz.generator", havingValue = "cohere", matchIfMissing = true)
+public class CohereClient {
+
+    private static final Logger logger = LoggerFactory.getLogger(CohereClient.class);
+
+    private final RestTemplate restTemplate;
+    private final Semaphore bulkhead;
+    private final int maxConcurrent;
+    private final long bulkheadWaitMillis;
+    private final CircuitBreaker breaker;
+    private final MeterRegistry meterRegistry;
+
+    public CohereClient(MeterRegistry meterRegistry,
+                        @Value("${cohere.http.connect-timeout-ms:3000}") long connectTimeoutMillis,
+                        @Value("${cohere.http.read-timeout-ms:30000}") long readTimeoutMillis,
+                        @Value("${cohere.http.max-concurrent:4}") int maxConcurrent,
+                        @Value("${cohere.http.bulkhead-wait-ms:2000}") long bulkheadWaitMillis,
+                        @Value("${cohere.breaker.failure-threshold:5}") int failureThreshold,
+                        @Value("${cohere.breaker.open-ms:30000}") long openMillis) {
+        // The JDK client keeps connections alive and reuses them across requests
+        HttpClient httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(connectTimeoutMillis))
+                .build();
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(Duration.ofMillis(readTimeoutMillis));
+
+        this.restTemplate = new RestTemplate(requestFactory);
+        this.maxConcurrent = maxConcurrent;
+        this.bulkhead = new Semaphore(maxConcurrent);
+        this.bulkheadWaitMillis = bulkheadWaitMillis;
+        this.breaker = new CircuitBreaker(failureThreshold, openMillis, Clock.systemUTC());
+        this.meterRegistry = meterRegistry;
+
+        Gauge.builder("cohere.circuit.state", breaker, b -> b.getState().ordinal())
+                .description("Cohere circuit breaker state (0=closed, 1=half-open, 2=open)")
+                .register(meterRegistry);
+        Gauge.builder("cohere.bulkhead.in-use", bulkhead, b -> maxConcurrent - b.availablePermits())
+                .description("Cohere calls currently in flight")
+                .register(meterRegistry);
+        Gauge.builder("cohere.bulkhead.saturation", bulkhead,
+                        b -> (maxConcurrent - b.availablePermits()) / (double) maxConcurrent)
+                .description("Fraction of the Cohere bulkhead in use")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Run one upstream request. RestClientExceptions (timeouts, connection errors,
+     * HTTP error statuses) count as failures for the circuit breaker.
+     */
+    public <T> T execute(Function<RestTemplate, T> request) {
+        if (!breaker.tryAcquire()) {
+            meterRegistry.counter("cohere.calls.rejected", "reason", "circuit-open").increment();
+            throw new GeneratorUnavailableException("Cohere circuit breaker is open");
+        }
+
+        boolean permitted = false;
+        try {
+            permitted = bulkhead.tryAcquire(bulkheadWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!permitted) {
+            // Not the upstream's fault: give the breaker permit back without counting a failure
+            breaker.release();
+            meterRegistry.counter("cohere.calls.rejected", "reason", "bulkhead-full").increment();
+            throw new GeneratorUnavailableException("Too many concurrent Cohere calls");
+        }
+
+        try {
+            T result = request.apply(restTemplate);
+            breaker.onSuccess();
+            meterRegistry.counter("cohere.calls", "outcome", "success").increment();
+            return result;
+        } catch (RestClientException e) {
+            breaker.onFailure();
+            meterRegistry.counter("cohere.calls", "outcome", "failure").increment();
+            logger.warn("Cohere call failed ({}): {}", breaker.getState(), e.getMessage());
+            throw e;
+        } catch (RuntimeException e) {
+            // The upstream answered; the problem is in handling its response
+            breaker.onSuccess();
+            meterRegistry.counter("cohere.calls", "outcome", "success").increment();
+            throw e;
+        } finally {
+            bulkhead.release();
+        }
+    }
+}
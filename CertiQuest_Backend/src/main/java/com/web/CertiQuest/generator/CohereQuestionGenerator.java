@@ -0,0 +1,239 @@
+package com.web.CertiQuest.generator;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.web.CertiQuest.model.QuizQuestion;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Generates questions with the Cohere chat API. Active unless
+ * {@code quiz.generator} selects another implementation.
+ */
+@Component
+@ConditionalOnProperty(name = "quiz.generator", havingValue = "cohere", matchIfMissing = true)
+public class CohereQuestionGenerator implements QuestionGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(CohereQuestionGenerator.class);
+
+    @Value("${cohere.api.key}")
+    private String cohereApiKey;
+
+    @Value("${quiz.generation.streaming:false}")
+    private boolean streamingEnabled;
+
+    private final ObjectMapper objectMapper;
+    private final CohereClient cohereClient;
+
+    public CohereQuestionGenerator(ObjectMapper objectMapper, CohereClient cohereClient) {
+        this.objectMapper = objectMapper;
+        this.cohereClient = cohereClient;
+    }
+
+    @Override
+    public List<QuizQuestion> generate(String category, String difficulty, int count) {
+        // Generate prompt
+        String prompt = buildPrompt(category, difficulty, count);
+
+        if (streamingEnabled) {
+            return streamCohereQuestions(prompt, maxTokensFor(count), category, difficulty);
+        }
+        String jsonResponse = callCohereAPI(prompt, maxTokensFor(count));
+        return parseQuestions(jsonResponse, category, difficulty);
+    }
+
+    // ---------------- Prompt builder ----------------
+    private String buildPrompt(String category, String difficulty, int noOfQuestions) {
+        return String.format("""
+                Generate %d multiple-choice quiz questions in the category '%s' with difficulty '%s'.
+                Each question must have 4 unique options.
+                Format the response strictly as a valid JSON array like this:
+                [
+                  {
+                    "question": "Example question?",
+                    "options": ["A", "B", "C", "D"],
+                    "correctAnswer": "A"
+                  }
+                ]
+                Do not include explanations or any text outside the JSON array.
+                """, noOfQuestions, category, difficulty);
+    }
+
+    // ---------------- Call Cohere API ----------------
+    private String callCohereAPI(String prompt, int maxTokens) {
+        try {
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            headers.set("Authorization", "Bearer " + cohereApiKey);
+
+            Map<String, Object> requestBody = Map.of(
+                    "model", "command-nightly",
+                    "message", prompt,
+                    "max_tokens", maxTokens,
+                    "temperature", 0.7
+            );
+
+            HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
+            Map<String, Object> response = cohereClient.execute(restTemplate -> restTemplate.postForObject(
+                    "https://api.cohere.ai/v1/chat",
+                    entity,
+                    Map.class
+            ));
+
+            if (response != null && response.get("text") != null) {
+                String rawText = response.get("text").toString().trim();
+                String cleaned = cleanJsonResponse(rawText);
+                logger.debug("Raw Cohere response: {}", rawText);
+                logger.debug("Cleaned JSON response: {}", cleaned);
+                return cleaned;
+            }
+
+            throw new RuntimeException("No text in Cohere API response: " + response);
+
+        } catch (GeneratorUnavailableException e) {
+            throw e;
+        } catch (Exception e) {
+            logger.error("Error calling Cohere API: {}", e.getMessage());
+            throw new RuntimeException("Error calling Cohere API", e);
+        }
+    }
+
+    // ---------------- Stream Cohere API ----------------
+    /**
+     * Streaming variant of callCohereAPI. Text deltas from the event stream are fed
+     * into an incremental parser, so each question is built as soon as its JSON
+     * object is complete and a reply cut off by max_tokens still yields every
+     * finished question.
+     */
+    private List<QuizQuestion> streamCohereQuestions(String prompt, int maxTokens, String category, String difficulty) {
+        try {
+            HttpHeaders headers = new HttpHeaders();
+            headers.setContentType(MediaType.APPLICATION_JSON);
+            headers.set("Authorization", "Bearer " + cohereApiKey);
+
+            Map<String, Object> requestBody = Map.of(
+                    "model", "command-nightly",
+                    "message", prompt,
+                    "max_tokens", maxTokens,
+                    "temperature", 0.7,
+                    "stream", true
+            );
+
+            List<QuizQuestion> questions = new ArrayList<>();
+            IncrementalJsonArrayParser parser = new IncrementalJsonArrayParser(objectMapper,
+                    map -> questions.add(toQuestion(map, category, difficulty)));
+
+            Boolean complete = cohereClient.execute(restTemplate -> restTemplate.execute(
+                    "https://api.cohere.ai/v1/chat",
+                    HttpMethod.POST,
+                    restTemplate.httpEntityCallback(new HttpEntity<>(requestBody, headers)),
+                    response -> {
+                        try (BufferedReader reader = new BufferedReader(
+                                new InputStreamReader(response.getBody(), StandardCharsets.UTF_8))) {
+                            String line;
+                            while ((line = reader.readLine()) != null) {
+                                if (line.isBlank()) continue;
+                                JsonNode event = objectMapper.readTree(line);
+                                if ("text-generation".equals(event.path("event_type").asText())) {
+                                    parser.feed(event.path("text").asText());
+                                }
+                            }
+                        }
+                        return parser.finish();
+                    }
+            ));
+
+            if (!Boolean.TRUE.equals(complete)) {
+                logger.warn("Cohere stream ended before the JSON array closed; kept {} complete questions",
+                        questions.size());
+            }
+            if (questions.isEmpty()) {
+                throw new RuntimeException("No complete questions in Cohere stream");
+            }
+            return questions;
+
+        } catch (GeneratorUnavailableException e) {
+            throw e;
+        } catch (Exception e) {
+            logger.error("Error streaming from Cohere API: {}", e.getMessage());
+            throw new RuntimeException("Error streaming from Cohere API", e);
+        }
+    }
+
+    // ---------------- Clean response ----------------
+    private String cleanJsonResponse(String text) {
+        if (text == null) return null;
+        text = text.trim();
+
+        if (text.startsWith("```json")) text = text.substring(7).trim();
+        else if (text.startsWith("```")) text = text.substring(3).trim();
+        if (text.endsWith("```")) text = text.substring(0, text.length() - 3).trim();
+
+        if (text.startsWith("\"") && text.endsWith("\"")) {
+            text = text.substring(1, text.length() - 1)
+                    .replace("\\\"", "\"")
+                    .replace("\\n", "")
+                    .replace("\\r", "");
+        }
+
+        return text;
+    }
+
+    private int maxTokensFor(int count) {
+        return Math.min(3000, 200 + count * 250);
+    }
+
+    // ---------------- Parse questions ----------------
+    private List<QuizQuestion> parseQuestions(String json, String category, String difficulty) {
+        try {
+            List<Map<String, Object>> questionMaps = objectMapper.readValue(json, new TypeReference<>() {});
+            List<QuizQuestion> questions = new ArrayList<>();
+
+            for (Map<String, Object> map : questionMaps) {
+                questions.add(toQuestion(map, category, difficulty));
+            }
+
+            return questions;
+
+        } catch (Exception e) {
+            logger.error("Error parsing Cohere JSON response: {}", e.getMessage());
+            throw new RuntimeException("Error parsing Cohere response: " + json, e);
+        }
+    }
+
+    private QuizQuestion toQuestion(Map<String, Object> map, String category, String difficulty) {
+        QuizQuestion q = new QuizQuestion();
+        q.setCategory(category);
+        q.setDifficultyLevel(difficulty);
+        q.setQuestion((String) map.get("question"));
+
+        // Handle options (ensure List<String>)
+        Object opts = map.get("options");
+        if (opts instanceof List<?>) {
+            q.setOptions(((List<?>) opts).stream()
+                    .map(Object::toString)
+                    .collect(Collectors.toList()));
+        } else {
+            q.setOptions(List.of("Option A", "Option B", "Option C", "Option D"));
+        }
+
+        q.setCorrectAnswer((String) map.getOrDefault("correctAnswer", "Option A"));
+        return q;
+    }
+}
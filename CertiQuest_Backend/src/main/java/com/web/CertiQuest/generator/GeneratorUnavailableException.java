@@ -0,0 +1,13 @@
+package com.web.CertiQuest.generator;
+
+/**
+ * Thrown without contacting the upstream when the question generator cannot take
+ * the call right now (circuit breaker open or too many calls in flight).
+ * Callers should serve from the existing question pool instead.
+ */
+public class GeneratorUnavailableException extends RuntimeException {
+
+    public GeneratorUnavailableException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,122 @@
+package com.web.CertiQuest.generator;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Push-style parser for a JSON array of objects that arrives in pieces, built on
+ * Jackson's non-blocking parser. Each array element is handed to the consumer as
+ * soon as its closing brace has been fed; nothing else is buffered.
+ *
+ * Anything before the opening '[' (such as a ```json fence) and after the closing
+ * ']' is ignored. If the input stops in the middle of an element, that element is
+ * dropped and every element completed before it is kept.
+ */
+class IncrementalJsonArrayParser {
+
+    private final ObjectMapper objectMapper;
+    private final Consumer<Map<String, Object>> consumer;
+    private final JsonParser parser;
+    private final ByteArrayFeeder feeder;
+
+    private boolean started;
+    private boolean finished;
+    private int depth;
+    private TokenBuffer element;
+    private int completed;
+
+    IncrementalJsonArrayParser(ObjectMapper objectMapper, Consumer<Map<String, Object>> consumer) throws IOException {
+        this.objectMapper = objectMapper;
+        this.consumer = consumer;
+        this.parser = objectMapper.getFactory().createNonBlockingByteArrayParser();
+        this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+    }
+
+    /**
+     * Feed the next piece of text. Throws if the content is not a valid JSON array.
+     */
+    void feed(String text) throws IOException {
+        if (finished || text == null || text.isEmpty()) return;
+
+        if (!started) {
+            int start = text.indexOf('[');
+            if (start < 0) return;
+            text = text.substring(start);
+            started = true;
+        }
+
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        feeder.feedInput(bytes, 0, bytes.length);
+        drain();
+    }
+
+    /**
+     * Signal end of input. Returns true if the array was closed, false if it was
+     * truncated (any incomplete trailing element has been discarded).
+     */
+    boolean finish() {
+        if (!finished) {
+            feeder.endOfInput();
+            try {
+                drain();
+            } catch (IOException e) {
+                // Truncated input: keep what was already emitted
+            }
+        }
+        return finished;
+    }
+
+    int completedElements() {
+        return completed;
+    }
+
+    private void drain() throws IOException {
+        JsonToken token;
+        while (!finished && (token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+            if (depth == 0) {
+                if (token != JsonToken.START_ARRAY) {
+                    throw new IOException("Expected a JSON array but found " + token);
+                }
+                depth = 1;
+                continue;
+            }
+
+            if (depth == 1) {
+                if (token == JsonToken.END_ARRAY) {
+                    finished = true;
+                    return;
+                }
+                if (token != JsonToken.START_OBJECT) {
+                    throw new IOException("Expected a JSON object in the array but found " + token);
+                }
+                element = new TokenBuffer(parser);
+            }
+
+            element.copyCurrentEvent(parser);
+            if (token.isStructStart()) depth++;
+            else if (token.isStructEnd()) depth--;
+
+            if (depth == 1) {
+                emit(element);
+                element = null;
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void emit(TokenBuffer buffer) throws IOException {
+        try (JsonParser elementParser = buffer.asParser(objectMapper)) {
+            Map<String, Object> map = objectMapper.readValue(elementParser, Map.class);
+            completed++;
+            consumer.accept(map);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.web.CertiQuest.generator;
+
+import com.web.CertiQuest.model.QuizQuestion;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Offline generator for load tests and capacity planning ({@code quiz.generator=local}).
+ *
+ * Questions are simple arithmetic items derived from a seed of the category and
+ * difficulty, so the same sequence of calls always yields the same questions.
+ * Each call sleeps for {@code quiz.generator.local.latency-ms} plus up to
+ * {@code quiz.generator.local.jitter-ms} to imitate an upstream round trip.
+ */
+@Component
+@ConditionalOnProperty(name = "quiz.generator", havingValue = "local")
+public class LocalQuestionGenerator implements QuestionGenerator {
+
+    @Value("${quiz.generator.local.latency-ms:0}")
+    private long latencyMillis;
+    @Value("${quiz.generator.local.jitter-ms:0}")
+    private long jitterMillis;
+
+    // Next question number per (category, difficulty), so repeated calls do not repeat questions
+    private final Map<String, AtomicLong> sequences = new ConcurrentHashMap<>();
+
+    @Override
+    public List<QuizQuestion> generate(String category, String difficulty, int count) {
+        String key = category.toLowerCase(Locale.ROOT) + "|" + difficulty.toLowerCase(Locale.ROOT);
+        long seed = key.hashCode();
+        long first = sequences.computeIfAbsent(key, k -> new AtomicLong()).getAndAdd(count);
+
+        simulateLatency(new Random(seed ^ first));
+
+        List<QuizQuestion> questions = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            questions.add(buildQuestion(category, difficulty, seed, first + i));
+        }
+        return questions;
+    }
+
+    private QuizQuestion buildQuestion(String category, String difficulty, long seed, long number) {
+        Random random = new Random(seed * 31 + number);
+        int scale = switch (difficulty.toUpperCase(Locale.ROOT)) {
+            case "EASY" -> 10;
+            case "HARD" -> 1000;
+            default -> 100;
+        };
+        int a = random.nextInt(scale) + 1;
+        int b = random.nextInt(scale) + 1;
+        int answer = a + b;
+
+        List<String> options = new ArrayList<>(List.of(
+                String.valueOf(answer),
+                String.valueOf(answer + 1 + random.nextInt(5)),
+                String.valueOf(answer - 1 - random.nextInt(5)),
+                String.valueOf(answer + 10 + random.nextInt(10))
+        ));
+        Collections.shuffle(options, random);
+
+        QuizQuestion q = new QuizQuestion();
+        q.setCategory(category);
+        q.setDifficultyLevel(difficulty);
+        q.setQuestion("[" + category + " #" + number + "] What is " + a + " + " + b + "?");
+        q.setOptions(options);
+        q.setCorrectAnswer(String.valueOf(answer));
+        return q;
+    }
+
+    private void simulateLatency(Random random) {
+        long delay = latencyMillis + (jitterMillis > 0 ? (long) (random.nextDouble() * jitterMillis) : 0);
+        if (delay <= 0) return;
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while simulating generation latency", e);
+        }
+    }
+}
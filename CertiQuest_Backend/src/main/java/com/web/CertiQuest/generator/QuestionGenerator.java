@@ -0,0 +1,17 @@
+package com.web.CertiQuest.generator;
+
+import com.web.CertiQuest.model.QuizQuestion;
+
+import java.util.List;
+
+/**
+ * Source of new multiple-choice questions. The implementation is picked with
+ * the {@code quiz.generator} property ({@code cohere} by default, or {@code local}).
+ *
+ * Implementations are called with chunk-sized counts and may return fewer
+ * questions than asked; callers validate and retry. Failures are thrown.
+ */
+public interface QuestionGenerator {
+
+    List<QuizQuestion> generate(String category, String difficulty, int count);
+}
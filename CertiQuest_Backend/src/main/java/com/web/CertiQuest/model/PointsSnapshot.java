@@ -0,0 +1,62 @@
+package com.web.CertiQuest.model;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * A user's balance as of a ledger entry. The balance at any later point is the
+ * snapshot plus the deltas of the transactions after lastTransactionId.
+ */
+@Entity
+@Table(name = "points_snapshots", indexes = @Index(name = "idx_points_snapshot_clerk", columnList = "clerk_id, last_transaction_id"))
+public class PointsSnapshot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private long id;
+    private String clerkId;
+    private int balance;
+    private long lastTransactionId;
+    private Instant takenAt;
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public String getClerkId() {
+        return clerkId;
+    }
+
+    public void setClerkId(String clerkId) {
+        this.clerkId = clerkId;
+    }
+
+    public int getBalance() {
+        return balance;
+    }
+
+    public void setBalance(int balance) {
+        this.balance = balance;
+    }
+
+    public long getLastTransactionId() {
+        return lastTransactionId;
+    }
+
+    public void setLastTransactionId(long lastTransactionId) {
+        this.lastTransactionId = lastTransactionId;
+    }
+
+    public Instant getTakenAt() {
+        return takenAt;
+    }
+
+    public void setTakenAt(Instant takenAt) {
+        this.takenAt = takenAt;
+    }
+}
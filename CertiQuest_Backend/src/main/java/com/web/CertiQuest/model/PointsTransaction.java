@@ -0,0 +1,85 @@
+package com.web.CertiQuest.model;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * One change to a user's points balance. Rows are only ever inserted, together with
+ * the balance update they record, so the log always adds up to user_points.points.
+ * Accounts created before the log existed got one OPENING entry for the balance it
+ * did not explain (see SchemaMigrations).
+ */
+@Entity
+@Table(name = "points_transactions", indexes = @Index(name = "idx_points_tx_clerk", columnList = "clerk_id, id"))
+public class PointsTransaction {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private long id;
+    private String clerkId;
+    private int delta;
+    private int balanceAfter;
+    private String reason;
+    private Instant createdAt;
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public String getClerkId() {
+        return clerkId;
+    }
+
+    public void setClerkId(String clerkId) {
+        this.clerkId = clerkId;
+    }
+
+    public int getDelta() {
+        return delta;
+    }
+
+    public void setDelta(int delta) {
+        this.delta = delta;
+    }
+
+    public int getBalanceAfter() {
+        return balanceAfter;
+    }
+
+    public void setBalanceAfter(int balanceAfter) {
+        this.balanceAfter = balanceAfter;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public void setReason(String reason) {
+        this.reason = reason;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Instant createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    @Override
+    public String toString() {
+        return "PointsTransaction{" +
+                "id=" + id +
+                ", clerkId='" + clerkId + '\'' +
+                ", delta=" + delta +
+                ", balanceAfter=" + balanceAfter +
+                ", reason='" + reason + '\'' +
+                ", createdAt=" + createdAt +
+                '}';
+    }
+}
@@ -21,6 +21,7 @@ public class Profile {
     private String lastName;
     private String photoUrl;
     private Instant createdAt;
+    // No longer written: balances are kept only in user_points (see UserPointsService)
     private int points;
 
     @Enumerated(EnumType.STRING)
@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
 
 import java.time.Instant;
 import java.time.LocalDate;
@@ -38,11 +39,20 @@ public class Quiz {
             fetch = FetchType.LAZY)
     private List<QuizQuestion> questions = new ArrayList<>();
 
+    // Read-only view of the membership table. Participants are added through
+    // QuizDao.addParticipantIfAbsent, so joining never loads or rewrites the whole list.
     @ElementCollection
-    @CollectionTable(name = "quiz_participants", joinColumns = @JoinColumn(name = "quiz_id"))
+    @Immutable
+    @CollectionTable(name = "quiz_participants", joinColumns = @JoinColumn(name = "quiz_id"),
+            uniqueConstraints = @UniqueConstraint(name = "uk_quiz_participant", columnNames = {"quiz_id", "participant_id"}))
     @Column(name = "participant_id")
     private List<String> participants = new ArrayList<>();
 
+    // Maintained by the statements that add participants, never by saving the entity.
+    // Older quizzes are counted by SchemaMigrations before the application serves requests
+    @Column(updatable = false)
+    private Integer participantCount = 0;
+
     @PrePersist
     protected void onCreate() {
         if (createdAt == null) createdAt = Instant.now();
@@ -168,6 +178,14 @@ public class Quiz {
         this.participants = participants;
     }
 
+    public Integer getParticipantCount() {
+        return participantCount;
+    }
+
+    public void setParticipantCount(Integer participantCount) {
+        this.participantCount = participantCount;
+    }
+
     @Override
     public String toString() {
         return "Quiz{" +
@@ -179,7 +197,7 @@ public class Quiz {
                 ", createdAt=" + createdAt +
                 ", expiryDate=" + expiryDate +
                 ", noOfQuestions=" + noOfQuestions +
-                ", participants=" + participants +
+                ", participantCount=" + participantCount +
                 '}';
     }
 }
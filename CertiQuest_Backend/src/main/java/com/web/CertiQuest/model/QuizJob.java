@@ -0,0 +1,106 @@
+package com.web.CertiQuest.model;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-memory status of a background quiz creation job (AI generation or PDF ingestion).
+ * Fields are volatile because the worker thread writes them while
+ * request threads poll for the current state.
+ */
+public class QuizJob {
+
+    public enum Status {
+        QUEUED,
+        EXTRACTING,
+        GENERATING,
+        PERSISTING,
+        COMPLETED,
+        FAILED
+    }
+
+    private final String id;
+    private final String createdBy;
+    private final Instant createdAt;
+    private volatile Status status = Status.QUEUED;
+    private volatile Integer quizId;
+    private volatile String error;
+    private volatile Instant updatedAt;
+
+    // PDF ingestion progress
+    private volatile Integer pagesTotal;
+    private final AtomicInteger pagesDone = new AtomicInteger();
+    private volatile Integer questionsFound;
+    private volatile Instant extractionStartedAt;
+
+    public QuizJob(String id, String createdBy) {
+        this.id = id;
+        this.createdBy = createdBy;
+        this.createdAt = Instant.now();
+        this.updatedAt = this.createdAt;
+    }
+
+    public boolean isFinished() {
+        return status == Status.COMPLETED || status == Status.FAILED;
+    }
+
+    // ===== Getters & Setters =====
+    public String getId() { return id; }
+
+    public String getCreatedBy() { return createdBy; }
+
+    public Instant getCreatedAt() { return createdAt; }
+
+    public Status getStatus() { return status; }
+    public void setStatus(Status status) {
+        this.status = status;
+        this.updatedAt = Instant.now();
+    }
+
+    public Integer getQuizId() { return quizId; }
+    public void setQuizId(Integer quizId) { this.quizId = quizId; }
+
+    public String getError() { return error; }
+    public void setError(String error) { this.error = error; }
+
+    public Instant getUpdatedAt() { return updatedAt; }
+
+    public Integer getPagesTotal() { return pagesTotal; }
+    public void startExtraction(int pagesTotal) {
+        this.pagesTotal = pagesTotal;
+        this.extractionStartedAt = Instant.now();
+    }
+
+    public int getPagesDone() { return pagesDone.get(); }
+    public void pageDone() { pagesDone.incrementAndGet(); }
+
+    public Integer getQuestionsFound() { return questionsFound; }
+    public void setQuestionsFound(Integer questionsFound) { this.questionsFound = questionsFound; }
+
+    /**
+     * Remaining extraction time extrapolated from the pages done so far, or null if unknown.
+     */
+    public Long getEtaSeconds() {
+        Integer total = pagesTotal;
+        int done = pagesDone.get();
+        if (status != Status.EXTRACTING || total == null || done == 0 || extractionStartedAt == null) return null;
+        long elapsedMillis = Duration.between(extractionStartedAt, Instant.now()).toMillis();
+        return elapsedMillis * (total - done) / done / 1000;
+    }
+
+    @Override
+    public String toString() {
+        return "QuizJob{" +
+                "id='" + id + '\'' +
+                ", createdBy='" + createdBy + '\'' +
+                ", status=" + status +
+                ", quizId=" + quizId +
+                ", pagesDone=" + pagesDone +
+                ", pagesTotal=" + pagesTotal +
+                ", error='" + error + '\'' +
+                ", createdAt=" + createdAt +
+                ", updatedAt=" + updatedAt +
+                '}';
+    }
+}
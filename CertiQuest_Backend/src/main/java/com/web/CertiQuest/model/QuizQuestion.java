@@ -7,9 +7,14 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
 
 @Entity
-@Table(name = "questions")
+@Table(name = "questions", indexes = {
+        // Supports random sampling of a (category, difficulty) pool by random_key range; quiz_id
+        // comes last so the scan stays in random_key order and skips owned rows inside the index
+        @Index(name = "idx_questions_pool_unowned_random_key", columnList = "category, difficulty_level, random_key, quiz_id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -35,6 +40,16 @@ public class QuizQuestion {
     @JsonIgnore
     private Quiz quiz;
 
+    // Uniform value in [0, 1) used to pick random questions without loading the pool
+    @Column(name = "random_key")
+    @JsonIgnore
+    private Double randomKey;
+
+    @PrePersist
+    protected void onCreate() {
+        if (randomKey == null) randomKey = ThreadLocalRandom.current().nextDouble();
+    }
+
     public int getId() {
         return id;
     }
@@ -91,6 +106,14 @@ public class QuizQuestion {
         this.quiz = quiz;
     }
 
+    public Double getRandomKey() {
+        return randomKey;
+    }
+
+    public void setRandomKey(Double randomKey) {
+        this.randomKey = randomKey;
+    }
+
     @Override
     public String toString() {
         return "QuizQuestion{" +
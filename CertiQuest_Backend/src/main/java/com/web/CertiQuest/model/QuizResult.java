@@ -28,6 +28,10 @@ public class QuizResult {
 
     private Instant attemptedAt = Instant.now();
 
+    // Set for results written from the submission pipeline; null for direct saves
+    @Column(unique = true)
+    private String submissionId;
+
     public int getId() {
         return id;
     }
@@ -75,4 +79,12 @@ public class QuizResult {
     public void setAttemptedAt(Instant attemptedAt) {
         this.attemptedAt = attemptedAt;
     }
+
+    public String getSubmissionId() {
+        return submissionId;
+    }
+
+    public void setSubmissionId(String submissionId) {
+        this.submissionId = submissionId;
+    }
 }
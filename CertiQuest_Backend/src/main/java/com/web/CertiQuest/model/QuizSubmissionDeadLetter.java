@@ -0,0 +1,68 @@
+package com.web.CertiQuest.model;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * A submission the write-behind pipeline could not store, kept with its payload
+ * and error so it can be inspected and replayed instead of blocking the pipeline.
+ */
+@Entity
+@Table(name = "quiz_submission_dead_letters")
+public class QuizSubmissionDeadLetter {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private long id;
+
+    private String submissionId;
+
+    @Column(columnDefinition = "TEXT")
+    private String payload;
+
+    @Column(length = 2000)
+    private String error;
+
+    private Instant failedAt;
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public String getSubmissionId() {
+        return submissionId;
+    }
+
+    public void setSubmissionId(String submissionId) {
+        this.submissionId = submissionId;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public void setPayload(String payload) {
+        this.payload = payload;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public Instant getFailedAt() {
+        return failedAt;
+    }
+
+    public void setFailedAt(Instant failedAt) {
+        this.failedAt = failedAt;
+    }
+}
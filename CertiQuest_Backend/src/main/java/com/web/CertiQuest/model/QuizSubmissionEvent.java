@@ -0,0 +1,62 @@
+package com.web.CertiQuest.model;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * A scored submission waiting to be written as a QuizResult. The submissionId is
+ * unique per attempt, so a redelivered event is not stored twice.
+ */
+public class QuizSubmissionEvent implements Serializable {
+
+    private String submissionId;
+    private int quizId;
+    private String userId;
+    private int score;
+    private int totalQuestions;
+    private Instant attemptedAt;
+
+    // Default constructor for serialization/deserialization
+    public QuizSubmissionEvent() {}
+
+    public QuizSubmissionEvent(int quizId, String userId, int score, int totalQuestions, Instant attemptedAt) {
+        this.submissionId = UUID.randomUUID().toString();
+        this.quizId = quizId;
+        this.userId = userId;
+        this.score = score;
+        this.totalQuestions = totalQuestions;
+        this.attemptedAt = attemptedAt;
+    }
+
+    // ===== Getters and Setters =====
+    public String getSubmissionId() { return submissionId; }
+    public void setSubmissionId(String submissionId) { this.submissionId = submissionId; }
+
+    public int getQuizId() { return quizId; }
+    public void setQuizId(int quizId) { this.quizId = quizId; }
+
+    public String getUserId() { return userId; }
+    public void setUserId(String userId) { this.userId = userId; }
+
+    public int getScore() { return score; }
+    public void setScore(int score) { this.score = score; }
+
+    public int getTotalQuestions() { return totalQuestions; }
+    public void setTotalQuestions(int totalQuestions) { this.totalQuestions = totalQuestions; }
+
+    public Instant getAttemptedAt() { return attemptedAt; }
+    public void setAttemptedAt(Instant attemptedAt) { this.attemptedAt = attemptedAt; }
+
+    @Override
+    public String toString() {
+        return "QuizSubmissionEvent{" +
+                "submissionId='" + submissionId + '\'' +
+                ", quizId=" + quizId +
+                ", userId='" + userId + '\'' +
+                ", score=" + score +
+                ", totalQuestions=" + totalQuestions +
+                ", attemptedAt=" + attemptedAt +
+                '}';
+    }
+}
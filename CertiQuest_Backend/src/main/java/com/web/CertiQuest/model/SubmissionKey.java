@@ -0,0 +1,78 @@
+package com.web.CertiQuest.model;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * Reservation of a write-behind submission id, inserted in the same transaction as
+ * the charge. Its quiz_results row only exists once SubmissionWriter flushes, so a
+ * retry on another node finds the submission here in the meantime, together with
+ * the result it was given.
+ */
+@Entity
+@Table(name = "submission_keys", indexes = @Index(name = "idx_submission_keys_attempted", columnList = "attempted_at"))
+public class SubmissionKey {
+
+    @Id
+    @Column(length = 64)
+    private String submissionId;
+
+    private int quizId;
+
+    private String userId;
+
+    private int score;
+
+    private int totalQuestions;
+
+    private Instant attemptedAt;
+
+    public String getSubmissionId() {
+        return submissionId;
+    }
+
+    public void setSubmissionId(String submissionId) {
+        this.submissionId = submissionId;
+    }
+
+    public int getQuizId() {
+        return quizId;
+    }
+
+    public void setQuizId(int quizId) {
+        this.quizId = quizId;
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public void setUserId(String userId) {
+        this.userId = userId;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public void setScore(int score) {
+        this.score = score;
+    }
+
+    public int getTotalQuestions() {
+        return totalQuestions;
+    }
+
+    public void setTotalQuestions(int totalQuestions) {
+        this.totalQuestions = totalQuestions;
+    }
+
+    public Instant getAttemptedAt() {
+        return attemptedAt;
+    }
+
+    public void setAttemptedAt(Instant attemptedAt) {
+        this.attemptedAt = attemptedAt;
+    }
+}
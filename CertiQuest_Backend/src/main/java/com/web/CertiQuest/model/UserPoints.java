@@ -3,7 +3,7 @@ package com.web.CertiQuest.model;
 import jakarta.persistence.*;
 
 @Entity
-@Table(name = "user_points")
+@Table(name = "user_points", uniqueConstraints = @UniqueConstraint(name = "uk_user_points_clerk", columnNames = "clerk_id"))
 public class UserPoints {
 
     @Id
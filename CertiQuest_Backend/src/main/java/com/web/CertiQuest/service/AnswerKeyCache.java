@@ -0,0 +1,166 @@
+package com.web.CertiQuest.service;
+
+import com.web.CertiQuest.dao.QuizQuestionDao;
+import com.web.CertiQuest.dto.QuizSubmissionDto;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-quiz answer keys for scoring, loaded with one query and kept until the quiz
+ * is updated or deleted (or evicted past {@code quiz.answer-key.cache-size} quizzes).
+ */
+@Component
+public class AnswerKeyCache {
+
+    @Autowired
+    private QuizQuestionDao quizQuestionDao;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${quiz.answer-key.cache-size:1000}")
+    private int maxQuizzes;
+
+    private final Map<Integer, AnswerKey> keys = new ConcurrentHashMap<>();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * Question ids sorted ascending, with the correct answer at the same index.
+     * Immutable once built, so any number of graders can read it without locking.
+     */
+    public record AnswerKey(int[] questionIds, String[] correctAnswers) {
+
+        static AnswerKey of(List<Object[]> rows) {
+            Object[][] sorted = rows.toArray(new Object[0][]);
+            Arrays.sort(sorted, (a, b) -> Integer.compare((Integer) a[0], (Integer) b[0]));
+            int[] ids = new int[sorted.length];
+            String[] answers = new String[sorted.length];
+            for (int i = 0; i < sorted.length; i++) {
+                ids[i] = (Integer) sorted[i][0];
+                answers[i] = (String) sorted[i][1];
+            }
+            return new AnswerKey(ids, answers);
+        }
+
+        /**
+         * Correct answer for the question, or null if it is not part of this key.
+         */
+        public String correctAnswer(int questionId) {
+            int i = Arrays.binarySearch(questionIds, questionId);
+            return i >= 0 ? correctAnswers[i] : null;
+        }
+
+        public boolean contains(int questionId) {
+            return Arrays.binarySearch(questionIds, questionId) >= 0;
+        }
+    }
+
+    @PostConstruct
+    void registerMetrics() {
+        Gauge.builder("quiz.answer-key.cache.size", keys, Map::size).register(meterRegistry);
+    }
+
+    public AnswerKey get(int quizId) {
+        AnswerKey key = keys.get(quizId);
+        if (key != null) {
+            meterRegistry.counter("quiz.answer-key.cache", "result", "hit").increment();
+            return key;
+        }
+        meterRegistry.counter("quiz.answer-key.cache", "result", "miss").increment();
+        if (keys.size() >= maxQuizzes) {
+            evictSome();
+        }
+        // Loaded outside the map so the query does not block other keys. If an invalidate()
+        // ran meanwhile, the key may predate the update, so it is used but not kept.
+        long seen = invalidations.get();
+        AnswerKey loaded = AnswerKey.of(quizQuestionDao.findAnswerKeyByQuizId(quizId));
+        AnswerKey raced = keys.putIfAbsent(quizId, loaded);
+        if (raced != null) {
+            return raced;
+        }
+        if (invalidations.get() != seen) {
+            keys.remove(quizId, loaded);
+        }
+        return loaded;
+    }
+
+    public void invalidate(int quizId) {
+        invalidations.incrementAndGet();
+        keys.remove(quizId);
+    }
+
+    /**
+     * Score a submission against the quiz's answer key. Answers to questions that are
+     * not (or no longer) in the quiz are looked up together in one extra query.
+     */
+    public int score(QuizSubmissionDto submission) {
+        List<QuizSubmissionDto.UserAnswer> answers = submission.getAnswers();
+        return score(keyFor(submission.getQuizId(), List.of(answers)), answers);
+    }
+
+    /**
+     * The quiz's answer key, extended with any other questions the given answers refer to
+     * (one extra query for all of them). The result covers every answer in answerSets.
+     */
+    public AnswerKey keyFor(int quizId, Collection<List<QuizSubmissionDto.UserAnswer>> answerSets) {
+        AnswerKey key = get(quizId);
+
+        Set<Integer> unknownIds = null;
+        for (List<QuizSubmissionDto.UserAnswer> answers : answerSets) {
+            for (QuizSubmissionDto.UserAnswer answer : answers) {
+                if (!key.contains(answer.getQuestionId())) {
+                    if (unknownIds == null) unknownIds = new HashSet<>();
+                    unknownIds.add(answer.getQuestionId());
+                }
+            }
+        }
+        if (unknownIds == null) {
+            return key;
+        }
+
+        List<Object[]> rows = new ArrayList<>(quizQuestionDao.findAnswerKeyByIdIn(new ArrayList<>(unknownIds)));
+        for (int i = 0; i < key.questionIds().length; i++) {
+            rows.add(new Object[]{key.questionIds()[i], key.correctAnswers()[i]});
+        }
+        return AnswerKey.of(rows);
+    }
+
+    /**
+     * Number of answers matching the key, ignoring case. Reads only the key, so it is
+     * safe to call from many threads at once.
+     */
+    public static int score(AnswerKey key, List<QuizSubmissionDto.UserAnswer> answers) {
+        int score = 0;
+        for (QuizSubmissionDto.UserAnswer answer : answers) {
+            String correct = key.correctAnswer(answer.getQuestionId());
+            if (correct != null && correct.equalsIgnoreCase(answer.getSelectedAnswer())) {
+                score++;
+            }
+        }
+        return score;
+    }
+
+    // Drops roughly a tenth of the cached keys; recently loaded keys are as likely to go as old ones
+    private void evictSome() {
+        int toRemove = Math.max(1, maxQuizzes / 10);
+        Iterator<Integer> it = keys.keySet().iterator();
+        while (toRemove-- > 0 && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+}
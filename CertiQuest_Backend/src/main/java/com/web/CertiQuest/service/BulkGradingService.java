@@ -0,0 +1,98 @@
+package com.web.CertiQuest.service;
+
+import com.web.CertiQuest.dto.BulkSubmissionDto;
+import com.web.CertiQuest.dto.QuizSubmissionDto;
+import com.web.CertiQuest.model.QuizResult;
+import com.web.CertiQuest.model.QuizSubmissionEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Grades many submissions for one quiz at once, e.g. a whole classroom session.
+ * The answer key is loaded once, the submissions are graded in parallel on the
+ * gradingPool, and the results and participants are written as one batch.
+ */
+@Service
+public class BulkGradingService {
+
+    @Autowired
+    private AnswerKeyCache answerKeyCache;
+    @Autowired
+    private SubmissionWriter submissionWriter;
+    @Autowired
+    private UserPointsService userPointsService;
+    @Autowired
+    @Qualifier("gradingPool")
+    private ForkJoinPool gradingPool;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${quiz.grading.max-submissions:1000}")
+    private int maxSubmissions;
+
+    /**
+     * Deducts one point per submission from the caller, as the single submit endpoint
+     * does, and returns the results in request order. Either everything is charged and
+     * stored, or nothing is.
+     */
+    @Transactional
+    public List<QuizResult> gradeAll(int quizId, BulkSubmissionDto bulk) {
+        List<BulkSubmissionDto.Entry> entries = bulk.getSubmissions();
+        if (entries == null || entries.isEmpty()) {
+            throw new IllegalArgumentException("No submissions to grade");
+        }
+        if (entries.size() > maxSubmissions) {
+            throw new IllegalArgumentException("At most " + maxSubmissions + " submissions can be graded at once");
+        }
+        List<List<QuizSubmissionDto.UserAnswer>> answerSets = new ArrayList<>(entries.size());
+        for (BulkSubmissionDto.Entry entry : entries) {
+            if (entry.getUserId() == null || entry.getUserId().isBlank()) {
+                throw new IllegalArgumentException("Every submission needs a userId");
+            }
+            answerSets.add(entry.getAnswers() == null ? List.of() : entry.getAnswers());
+        }
+
+        AnswerKeyCache.AnswerKey key = answerKeyCache.keyFor(quizId, answerSets);
+        // A parallel stream started from inside the pool runs its tasks in that pool
+        int[] scores = meterRegistry.timer("quiz.grading.bulk").record(() ->
+                gradingPool.submit(() -> IntStream.range(0, answerSets.size())
+                        .parallel()
+                        .map(i -> AnswerKeyCache.score(key, answerSets.get(i)))
+                        .toArray()).join());
+
+        Instant attemptedAt = Instant.now();
+        List<QuizResult> results = new ArrayList<>(entries.size());
+        List<QuizSubmissionEvent> events = new ArrayList<>(entries.size());
+        for (int i = 0; i < entries.size(); i++) {
+            String userId = entries.get(i).getUserId();
+            QuizSubmissionEvent event = new QuizSubmissionEvent(quizId, userId, scores[i], answerSets.get(i).size(), attemptedAt);
+            events.add(event);
+
+            QuizResult result = new QuizResult();
+            result.setQuizId(quizId);
+            result.setUserId(userId);
+            result.setScore(scores[i]);
+            result.setTotalQuestions(answerSets.get(i).size());
+            result.setAttemptedAt(attemptedAt);
+            result.setSubmissionId(event.getSubmissionId());
+            results.add(result);
+        }
+        // Debited last so the user_points row lock is held only for the write
+        userPointsService.consumePoints(entries.size())
+                .orElseThrow(() -> new RuntimeException("Insufficient points to grade " + entries.size() + " submissions"));
+        submissionWriter.writeBatch(events);
+        meterRegistry.counter("quiz.grading.bulk.submissions").increment(entries.size());
+
+        return results;
+    }
+}
@@ -0,0 +1,304 @@
+package com.web.CertiQuest.service;
+
+import com.web.CertiQuest.dao.QuizQuestionDao;
+import com.web.CertiQuest.model.QuizQuestion;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalInt;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory near-duplicate index over question text, one per (category, difficulty) pool.
+ *
+ * Each question is stored as a MinHash signature split into 8 bands of 4 slots
+ * (locality-sensitive hashing). A lookup only compares against questions sharing
+ * at least one band, then checks the exact word-set (Jaccard) similarity against
+ * {@code quiz.dedup.min-similarity}; the MinHash estimate alone is too noisy for short
+ * questions. The index is rebuilt from the questions table at startup and updated
+ * after inserts and deletes commit.
+ */
+@Component
+public class DuplicateQuestionIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(DuplicateQuestionIndex.class);
+    private static final int BANDS = 8;
+    private static final int ROWS = MinHash.SIGNATURE_SIZE / BANDS;
+    private static final int PAGE_SIZE = 5000;
+
+    @Autowired
+    private QuizQuestionDao quizQuestionDao;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${quiz.dedup.enabled:true}")
+    private boolean enabled;
+    @Value("${quiz.dedup.min-similarity:0.8}")
+    private double minSimilarity;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Index index = new Index();
+
+    private record Entry(int id, String pool, MinHash.Fingerprint fingerprint) {}
+
+    private static class Index {
+        final Map<String, Map<Long, List<Entry>>> pools = new HashMap<>();
+        final Map<Integer, Entry> entries = new HashMap<>();
+
+        void add(int id, String category, String difficulty, MinHash.Fingerprint fingerprint) {
+            if (entries.containsKey(id)) return;
+            Entry entry = new Entry(id, poolKey(category, difficulty), fingerprint);
+            entries.put(id, entry);
+            Map<Long, List<Entry>> bands = pools.computeIfAbsent(entry.pool(), k -> new HashMap<>());
+            for (int band = 0; band < BANDS; band++) {
+                bands.computeIfAbsent(bandKey(band, fingerprint.signature()), k -> new ArrayList<>(1)).add(entry);
+            }
+        }
+
+        void remove(int id) {
+            Entry entry = entries.remove(id);
+            if (entry == null) return;
+            Map<Long, List<Entry>> bands = pools.get(entry.pool());
+            for (int band = 0; band < BANDS; band++) {
+                long key = bandKey(band, entry.fingerprint().signature());
+                List<Entry> sharing = bands.get(key);
+                if (sharing == null) continue;
+                sharing.remove(entry);
+                if (sharing.isEmpty()) bands.remove(key);
+            }
+        }
+
+        // Band collisions only pick the candidates; the exact similarity decides
+        OptionalInt find(String category, String difficulty, MinHash.Fingerprint fingerprint, double minSimilarity) {
+            Map<Long, List<Entry>> bands = pools.get(poolKey(category, difficulty));
+            if (bands == null) return OptionalInt.empty();
+            for (int band = 0; band < BANDS; band++) {
+                List<Entry> candidates = bands.get(bandKey(band, fingerprint.signature()));
+                if (candidates == null) continue;
+                for (Entry e : candidates) {
+                    if (MinHash.jaccard(e.fingerprint().words(), fingerprint.words()) >= minSimilarity) {
+                        return OptionalInt.of(e.id());
+                    }
+                }
+            }
+            return OptionalInt.empty();
+        }
+    }
+
+    /**
+     * Candidates split into questions that are new and ids of already stored
+     * questions that some candidates duplicate.
+     */
+    public record Partition(List<QuizQuestion> fresh, Map<Integer, QuizQuestion> duplicates) {
+        // Stored question ids, each mapped to the first candidate that duplicated it
+        public List<Integer> existingIds() {
+            return new ArrayList<>(duplicates.keySet());
+        }
+    }
+
+    @PostConstruct
+    void registerMetrics() {
+        Gauge.builder("quiz.dedup.index.size", this, DuplicateQuestionIndex::size)
+                .description("Questions held in the near-duplicate index")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!enabled) return;
+        Index fresh = new Index();
+        int afterId = 0;
+        List<Object[]> rows;
+        do {
+            rows = quizQuestionDao.findIndexRowsAfter(afterId, PageRequest.of(0, PAGE_SIZE));
+            for (Object[] row : rows) {
+                afterId = (Integer) row[0];
+                fresh.add(afterId, (String) row[1], (String) row[2], MinHash.fingerprint((String) row[3]));
+            }
+        } while (rows.size() == PAGE_SIZE);
+
+        lock.writeLock().lock();
+        try {
+            index = fresh;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        logger.info("Near-duplicate index rebuilt with {} questions", fresh.entries.size());
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return index.entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Drops candidates that duplicate a stored question or an earlier candidate
+     * in the same list, and reports which stored questions were duplicated.
+     */
+    public Partition partition(List<QuizQuestion> candidates) {
+        if (!enabled) return new Partition(candidates, Map.of());
+
+        List<QuizQuestion> fresh = new ArrayList<>();
+        Map<Integer, QuizQuestion> duplicates = new LinkedHashMap<>();
+        Index batch = new Index();
+        int batchId = -1;
+
+        lock.readLock().lock();
+        try {
+            for (QuizQuestion q : candidates) {
+                MinHash.Fingerprint fingerprint = MinHash.fingerprint(q.getQuestion());
+                OptionalInt stored = index.find(q.getCategory(), q.getDifficultyLevel(), fingerprint, minSimilarity);
+                if (stored.isPresent()) {
+                    duplicates.putIfAbsent(stored.getAsInt(), q);
+                } else if (batch.find(q.getCategory(), q.getDifficultyLevel(), fingerprint, minSimilarity).isEmpty()) {
+                    batch.add(batchId--, q.getCategory(), q.getDifficultyLevel(), fingerprint);
+                    fresh.add(q);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        int dropped = candidates.size() - fresh.size();
+        if (dropped > 0) {
+            meterRegistry.counter("quiz.dedup.rejected").increment(dropped);
+        }
+        return new Partition(fresh, duplicates);
+    }
+
+    /**
+     * Index persisted questions once the surrounding transaction commits, so a
+     * rollback never leaves ids in the index that do not exist.
+     */
+    public void addAfterCommit(Collection<QuizQuestion> saved) {
+        if (!enabled || saved.isEmpty()) return;
+        List<QuizQuestion> snapshot = new ArrayList<>(saved);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    add(snapshot);
+                }
+            });
+        } else {
+            add(snapshot);
+        }
+    }
+
+    private void add(List<QuizQuestion> saved) {
+        lock.writeLock().lock();
+        try {
+            for (QuizQuestion q : saved) {
+                if (q.getId() <= 0) continue;
+                index.add(q.getId(), q.getCategory(), q.getDifficultyLevel(), MinHash.fingerprint(q.getQuestion()));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Drop deleted questions from the index once the surrounding transaction commits.
+     */
+    public void removeAfterCommit(Collection<Integer> deletedIds) {
+        if (!enabled || deletedIds.isEmpty()) return;
+        List<Integer> snapshot = new ArrayList<>(deletedIds);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    remove(snapshot);
+                }
+            });
+        } else {
+            remove(snapshot);
+        }
+    }
+
+    private void remove(List<Integer> deletedIds) {
+        lock.writeLock().lock();
+        try {
+            deletedIds.forEach(index::remove);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Batch compaction of the existing table: within each pool, the lowest id of a
+     * group of near-duplicates is kept. Later duplicates that are not part of any
+     * quiz are deleted. Duplicates that belong to a quiz are left alone, including
+     * ones attached to a quiz after the scan: the delete re-checks quiz_id itself.
+     */
+    @Scheduled(cron = "${quiz.dedup.compaction-cron:0 30 3 * * SUN}")
+    public int compact() {
+        if (!enabled) return 0;
+        Index kept = new Index();
+        List<Integer> toDelete = new ArrayList<>();
+        int afterId = 0;
+        List<Object[]> rows;
+        do {
+            rows = quizQuestionDao.findIndexRowsAfter(afterId, PageRequest.of(0, PAGE_SIZE));
+            for (Object[] row : rows) {
+                afterId = (Integer) row[0];
+                String category = (String) row[1];
+                String difficulty = (String) row[2];
+                MinHash.Fingerprint fingerprint = MinHash.fingerprint((String) row[3]);
+                boolean inQuiz = row[4] != null;
+
+                if (!inQuiz && kept.find(category, difficulty, fingerprint, minSimilarity).isPresent()) {
+                    toDelete.add(afterId);
+                } else {
+                    kept.add(afterId, category, difficulty, fingerprint);
+                }
+            }
+        } while (rows.size() == PAGE_SIZE);
+
+        int removed = 0;
+        for (int from = 0; from < toDelete.size(); from += PAGE_SIZE) {
+            // Each chunk commits on its own, so its ids can leave the index straight away
+            List<Integer> deleted = quizQuestionDao.deleteUnownedByIdIn(
+                    toDelete.subList(from, Math.min(toDelete.size(), from + PAGE_SIZE)));
+            removeAfterCommit(deleted);
+            removed += deleted.size();
+        }
+        logger.info("Question compaction removed {} near-duplicates, skipped {} attached to a quiz meanwhile",
+                removed, toDelete.size() - removed);
+        return removed;
+    }
+
+    private static String poolKey(String category, String difficulty) {
+        return category + '\u0000' + difficulty;
+    }
+
+    private static long bandKey(int band, int[] signature) {
+        int h = 1;
+        for (int i = band * ROWS; i < (band + 1) * ROWS; i++) {
+            h = 31 * h + signature[i];
+        }
+        return ((long) band << 32) | (h & 0xFFFFFFFFL);
+    }
+}
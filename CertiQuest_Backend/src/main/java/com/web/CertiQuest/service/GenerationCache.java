@@ -0,0 +1,240 @@
+package com.web.CertiQuest.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.web.CertiQuest.model.QuizQuestion;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Bounded cache of parsed AI generation results, keyed by normalized
+ * (category, difficulty, chunk size).
+ *
+ * Each key holds up to {@code quiz.generation.cache.batches-per-key} batches. A draw
+ * returns the least recently served batch, but never the batch served last for that
+ * key, so two consecutive quizzes do not get the same questions. Batches expire after
+ * {@code quiz.generation.cache.ttl-minutes}; past {@code quiz.generation.cache.max-batches}
+ * the least recently used batch is evicted. Once questions are stored, any batch holding
+ * them is dropped, so the cache only holds questions that have not been persisted and a
+ * hit never stores the same question twice. If {@code quiz.generation.cache.file} is set,
+ * the cache is saved there periodically and on shutdown, and loaded on startup.
+ */
+@Component
+public class GenerationCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(GenerationCache.class);
+
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${quiz.generation.cache.enabled:true}")
+    private boolean enabled;
+    @Value("${quiz.generation.cache.ttl-minutes:60}")
+    private long ttlMinutes;
+    @Value("${quiz.generation.cache.max-batches:200}")
+    private int maxBatches;
+    @Value("${quiz.generation.cache.batches-per-key:4}")
+    private int batchesPerKey;
+    @Value("${quiz.generation.cache.file:}")
+    private String cacheFile;
+
+    // Access-ordered, so iteration starts at the least recently used batch
+    private final LinkedHashMap<Long, CachedBatch> batches = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Long> lastServed = new LinkedHashMap<>();
+    private long nextBatchId;
+    private boolean dirty;
+
+    public record CachedQuestion(String question, List<String> options, String correctAnswer) {}
+
+    public record CachedBatch(String key, long createdAt, List<CachedQuestion> questions) {}
+
+    @PostConstruct
+    void load() {
+        if (!enabled || cacheFile.isBlank()) return;
+        File file = new File(cacheFile);
+        if (!file.exists()) return;
+        try {
+            List<CachedBatch> stored = objectMapper.readValue(file, new TypeReference<>() {});
+            synchronized (this) {
+                for (CachedBatch batch : stored) {
+                    if (!isExpired(batch)) batches.put(nextBatchId++, batch);
+                }
+                evictOverflow();
+            }
+            logger.info("Loaded {} cached generation batches from {}", batches.size(), cacheFile);
+        } catch (IOException e) {
+            logger.warn("Could not load generation cache from {}: {}", cacheFile, e.getMessage());
+        }
+    }
+
+    /**
+     * Copies of a cached batch for this request, or empty on a miss.
+     */
+    public synchronized Optional<List<QuizQuestion>> draw(String category, String difficulty, int count) {
+        if (!enabled) return Optional.empty();
+        String key = key(category, difficulty, count);
+        Long last = lastServed.get(key);
+
+        Long chosen = null;
+        boolean expired = false;
+        for (Iterator<Map.Entry<Long, CachedBatch>> it = batches.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Long, CachedBatch> entry = it.next();
+            if (isExpired(entry.getValue())) {
+                it.remove();
+                expired = true;
+                continue;
+            }
+            if (chosen == null && entry.getValue().key().equals(key) && !entry.getKey().equals(last)) {
+                chosen = entry.getKey();
+            }
+        }
+        if (expired) {
+            forgetEmptyKeys();
+            dirty = true;
+        }
+
+        if (chosen == null) {
+            meterRegistry.counter("quiz.generation.cache", "result", "miss").increment();
+            return Optional.empty();
+        }
+
+        CachedBatch batch = batches.get(chosen); // marks it most recently used
+        lastServed.put(key, chosen);
+        meterRegistry.counter("quiz.generation.cache", "result", "hit").increment();
+        return Optional.of(toQuestions(batch, category, difficulty));
+    }
+
+    /**
+     * Caches a freshly generated batch; it counts as just served.
+     */
+    public synchronized void put(String category, String difficulty, int count, List<QuizQuestion> questions) {
+        if (!enabled || questions.isEmpty()) return;
+        String key = key(category, difficulty, count);
+
+        List<CachedQuestion> copies = questions.stream()
+                .map(q -> new CachedQuestion(q.getQuestion(), List.copyOf(q.getOptions()), q.getCorrectAnswer()))
+                .toList();
+        long id = nextBatchId++;
+        batches.put(id, new CachedBatch(key, System.currentTimeMillis(), copies));
+        lastServed.put(key, id);
+
+        List<Long> sameKey = batches.entrySet().stream()
+                .filter(e -> e.getValue().key().equals(key))
+                .map(Map.Entry::getKey)
+                .toList();
+        for (int i = 0; i < sameKey.size() - batchesPerKey; i++) {
+            batches.remove(sameKey.get(i));
+        }
+        evictOverflow();
+        forgetEmptyKeys();
+        dirty = true;
+    }
+
+    /**
+     * Drops every batch that contains one of the stored questions, matched by text.
+     */
+    public synchronized void evictPersisted(Collection<QuizQuestion> stored) {
+        if (!enabled || batches.isEmpty() || stored.isEmpty()) return;
+        Set<String> texts = new HashSet<>();
+        for (QuizQuestion q : stored) {
+            texts.add(q.getQuestion());
+        }
+        boolean removed = batches.values().removeIf(batch ->
+                batch.questions().stream().anyMatch(cached -> texts.contains(cached.question())));
+        if (removed) {
+            forgetEmptyKeys();
+            dirty = true;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${quiz.generation.cache.flush-interval-ms:300000}")
+    public void flush() {
+        if (!enabled || cacheFile.isBlank()) return;
+        List<CachedBatch> snapshot;
+        synchronized (this) {
+            if (!dirty) return;
+            snapshot = new ArrayList<>(batches.values());
+            dirty = false;
+        }
+        try {
+            File target = new File(cacheFile);
+            File parent = target.getAbsoluteFile().getParentFile();
+            if (parent != null && !parent.exists()) parent.mkdirs();
+            File tmp = new File(target.getAbsolutePath() + ".tmp");
+            objectMapper.writeValue(tmp, snapshot);
+            Files.move(tmp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            logger.warn("Could not save generation cache to {}: {}", cacheFile, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        flush();
+    }
+
+    private void evictOverflow() {
+        Iterator<Long> it = batches.keySet().iterator();
+        while (batches.size() > maxBatches && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    // lastServed is keyed by request parameters, so drop keys whose last batch is gone
+    private void forgetEmptyKeys() {
+        Set<String> live = new HashSet<>();
+        for (CachedBatch batch : batches.values()) {
+            live.add(batch.key());
+        }
+        lastServed.keySet().retainAll(live);
+    }
+
+    private boolean isExpired(CachedBatch batch) {
+        return System.currentTimeMillis() - batch.createdAt() > Duration.ofMinutes(ttlMinutes).toMillis();
+    }
+
+    private static List<QuizQuestion> toQuestions(CachedBatch batch, String category, String difficulty) {
+        List<QuizQuestion> questions = new ArrayList<>(batch.questions().size());
+        for (CachedQuestion cached : batch.questions()) {
+            QuizQuestion q = new QuizQuestion();
+            q.setCategory(category);
+            q.setDifficultyLevel(difficulty);
+            q.setQuestion(cached.question());
+            q.setOptions(new ArrayList<>(cached.options()));
+            q.setCorrectAnswer(cached.correctAnswer());
+            questions.add(q);
+        }
+        return questions;
+    }
+
+    private static String key(String category, String difficulty, int count) {
+        return category.trim().toLowerCase(Locale.ROOT) + '|'
+                + difficulty.trim().toLowerCase(Locale.ROOT) + '|' + count;
+    }
+}
@@ -0,0 +1,138 @@
+package com.web.CertiQuest.service;
+
+import com.web.CertiQuest.model.QuizQuestion;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Single-flight batching of question generation per (category, difficulty).
+ *
+ * The first caller for a key becomes the leader: it waits a short window for
+ * other callers to join, makes one upstream call for everything requested so far,
+ * and then one follow-up call for whatever is still missing (including callers
+ * that joined while the first call was in flight). Questions are handed out in
+ * arrival order, so every question goes to exactly one caller.
+ */
+class GenerationCoalescer {
+
+    interface Upstream {
+        List<QuizQuestion> generate(String category, String difficulty, int count);
+    }
+
+    private final Upstream upstream;
+    private final long windowMillis;
+    private final Map<String, Batch> inFlight = new ConcurrentHashMap<>();
+
+    GenerationCoalescer(Upstream upstream, long windowMillis) {
+        this.upstream = upstream;
+        this.windowMillis = windowMillis;
+    }
+
+    private static class Waiter {
+        final int count;
+        final CompletableFuture<List<QuizQuestion>> result = new CompletableFuture<>();
+
+        Waiter(int count) {
+            this.count = count;
+        }
+    }
+
+    private static class Batch {
+        final List<Waiter> waiters = new ArrayList<>();
+        int requested;
+        boolean closed;
+    }
+
+    /**
+     * Returns up to {@code count} questions. Fails only when the upstream failed
+     * and nothing at all could be handed to this caller.
+     */
+    List<QuizQuestion> generate(String category, String difficulty, int count) {
+        String key = category + '\u0000' + difficulty;
+        Waiter waiter = new Waiter(count);
+        Batch batch;
+        boolean leader;
+
+        while (true) {
+            batch = inFlight.computeIfAbsent(key, k -> new Batch());
+            synchronized (batch) {
+                if (!batch.closed) {
+                    batch.waiters.add(waiter);
+                    batch.requested += count;
+                    leader = batch.waiters.size() == 1;
+                    break;
+                }
+            }
+        }
+
+        if (leader) {
+            runBatch(key, batch, category, difficulty);
+        }
+
+        try {
+            return waiter.result.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException re ? re : e;
+        }
+    }
+
+    private void runBatch(String key, Batch batch, String category, String difficulty) {
+        List<QuizQuestion> available = new ArrayList<>();
+        RuntimeException failure = null;
+        List<Waiter> waiters;
+
+        try {
+            if (windowMillis > 0) {
+                Thread.sleep(windowMillis);
+            }
+
+            int firstRequest;
+            synchronized (batch) {
+                firstRequest = batch.requested;
+            }
+            try {
+                available.addAll(upstream.generate(category, difficulty, firstRequest));
+            } catch (RuntimeException e) {
+                failure = e;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure = new RuntimeException("Interrupted while coalescing generation requests", e);
+        } finally {
+            // Late joiners are still included: the batch only closes here
+            synchronized (batch) {
+                batch.closed = true;
+                inFlight.remove(key, batch);
+                waiters = new ArrayList<>(batch.waiters);
+            }
+        }
+
+        int totalRequested = waiters.stream().mapToInt(w -> w.count).sum();
+        int shortfall = totalRequested - available.size();
+        if (shortfall > 0 && !Thread.currentThread().isInterrupted()) {
+            try {
+                available.addAll(upstream.generate(category, difficulty, shortfall));
+            } catch (RuntimeException e) {
+                if (failure == null) failure = e;
+            }
+        }
+
+        int next = 0;
+        for (Waiter w : waiters) {
+            int end = Math.min(available.size(), next + w.count);
+            List<QuizQuestion> share = new ArrayList<>(available.subList(next, end));
+            next = end;
+
+            if (share.isEmpty() && failure != null) {
+                w.result.completeExceptionally(failure);
+            } else {
+                w.result.complete(share);
+            }
+        }
+    }
+}
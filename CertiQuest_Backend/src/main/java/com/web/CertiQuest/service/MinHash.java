@@ -0,0 +1,117 @@
+package com.web.CertiQuest.service;
+
+import java.text.Normalizer;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * MinHash signatures of question text over its set of normalized words. Shared
+ * signature bands find candidate near-duplicates cheaply; the exact Jaccard similarity
+ * of the word sets then decides, since 32 slots estimate it too coarsely for short text.
+ */
+final class MinHash {
+
+    static final int SIGNATURE_SIZE = 32;
+
+    /**
+     * Signature for candidate lookup plus the sorted word hashes, for the exact Jaccard
+     * similarity that confirms a match.
+     */
+    record Fingerprint(int[] signature, long[] words) {}
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}");
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+    // Leading numbering such as "12 " or "question 3 " carries no meaning
+    private static final Pattern NUMBERING = Pattern.compile("^(?:q(?:uestion)?\\s*)?\\d+\\s+");
+
+    private static final long[] SEEDS = new long[SIGNATURE_SIZE];
+
+    static {
+        long seed = 0x9E3779B97F4A7C15L;
+        for (int i = 0; i < SIGNATURE_SIZE; i++) {
+            seed = mix(seed + 0x9E3779B97F4A7C15L);
+            SEEDS[i] = seed;
+        }
+    }
+
+    private MinHash() {
+    }
+
+    static String normalize(String text) {
+        if (text == null) return "";
+        String s = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFKD)).replaceAll("");
+        s = NON_WORD.matcher(s.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+        return NUMBERING.matcher(s).replaceFirst("");
+    }
+
+    static Fingerprint fingerprint(String text) {
+        long[] words = words(text);
+        return new Fingerprint(signature(words), words);
+    }
+
+    // Distinct normalized words as sorted 64-bit hashes
+    private static long[] words(String text) {
+        Set<String> words = new HashSet<>();
+        for (String word : normalize(text).split(" ")) {
+            if (!word.isEmpty()) words.add(word);
+        }
+        long[] hashes = words.stream().mapToLong(MinHash::hash).distinct().toArray();
+        Arrays.sort(hashes);
+        return hashes;
+    }
+
+    private static int[] signature(long[] words) {
+        int[] signature = new int[SIGNATURE_SIZE];
+        Arrays.fill(signature, Integer.MAX_VALUE);
+        for (long base : words) {
+            for (int i = 0; i < SIGNATURE_SIZE; i++) {
+                int h = (int) (mix(base ^ SEEDS[i]) >>> 33);
+                if (h < signature[i]) signature[i] = h;
+            }
+        }
+        return signature;
+    }
+
+    /**
+     * Exact Jaccard similarity of two word sets from fingerprint().
+     */
+    static double jaccard(long[] a, long[] b) {
+        if (a.length == 0 && b.length == 0) return 1;
+        int i = 0, j = 0, common = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] == b[j]) {
+                common++;
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return common / (double) (a.length + b.length - common);
+    }
+
+    // FNV-1a
+    private static long hash(String feature) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < feature.length(); i++) {
+            h ^= feature.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return h;
+    }
+
+    // MurmurHash3 finalizer
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,89 @@
+package com.web.CertiQuest.service;
+
+import com.sun.jna.Pointer;
+import net.sourceforge.tess4j.ITessAPI;
+import net.sourceforge.tess4j.TessAPI1;
+import net.sourceforge.tess4j.Word;
+import net.sourceforge.tess4j.util.ImageIOHelper;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One Tesseract instance whose language model stays loaded between pages.
+ *
+ * tess4j's Tesseract classes create and destroy their native handle on every call, so
+ * each page would reload the model. This keeps one TessBaseAPI handle, initialised once,
+ * and only clears the page after each recognition. Not thread-safe: OcrWorkerPool lends
+ * each engine to one page at a time.
+ */
+final class OcrEngine implements AutoCloseable {
+
+    private final ITessAPI.TessBaseAPI handle;
+
+    OcrEngine(String datapath, String language) {
+        handle = TessAPI1.TessBaseAPICreate();
+        if (TessAPI1.TessBaseAPIInit3(handle, datapath, language) != 0) {
+            TessAPI1.TessBaseAPIDelete(handle);
+            throw new IllegalStateException("Could not initialise Tesseract for language " + language
+                    + (datapath != null ? " in " + datapath : ""));
+        }
+    }
+
+    /**
+     * Recognised paragraphs of the image with their confidence, in reading order.
+     */
+    List<Word> paragraphs(BufferedImage image) {
+        try {
+            setImage(image);
+            if (TessAPI1.TessBaseAPIRecognize(handle, null) != 0) {
+                throw new RuntimeException("Tesseract could not recognise the page");
+            }
+            return readParagraphs();
+        } finally {
+            TessAPI1.TessBaseAPIClear(handle);
+        }
+    }
+
+    @Override
+    public void close() {
+        TessAPI1.TessBaseAPIEnd(handle);
+        TessAPI1.TessBaseAPIDelete(handle);
+    }
+
+    // Same conversion as tess4j's Tesseract1.setImage
+    private void setImage(BufferedImage image) {
+        ByteBuffer buffer = ImageIOHelper.getImageByteBuffer(image);
+        int bpp = image.getData(new Rectangle(1, 1)).getDataBuffer() instanceof DataBufferByte
+                ? image.getColorModel().getPixelSize()
+                : 8;
+        int bytesPerLine = (int) Math.ceil(image.getWidth() * bpp / 8.0);
+        TessAPI1.TessBaseAPISetImage(handle, buffer, image.getWidth(), image.getHeight(), bpp / 8, bytesPerLine);
+    }
+
+    private List<Word> readParagraphs() {
+        List<Word> paragraphs = new ArrayList<>();
+        ITessAPI.TessResultIterator it = TessAPI1.TessBaseAPIGetIterator(handle);
+        if (it == null) return paragraphs;
+        try {
+            int level = ITessAPI.TessPageIteratorLevel.RIL_PARA;
+            ITessAPI.TessPageIterator page = TessAPI1.TessResultIteratorGetPageIterator(it);
+            TessAPI1.TessPageIteratorBegin(page);
+            do {
+                Pointer text = TessAPI1.TessResultIteratorGetUTF8Text(it, level);
+                if (text == null) continue;
+                String paragraph = text.getString(0, StandardCharsets.UTF_8.name());
+                TessAPI1.TessDeleteText(text);
+                paragraphs.add(new Word(paragraph, TessAPI1.TessResultIteratorConfidence(it, level), new Rectangle()));
+            } while (TessAPI1.TessPageIteratorNext(page, level) == ITessAPI.TRUE);
+        } finally {
+            TessAPI1.TessResultIteratorDelete(it);
+        }
+        return paragraphs;
+    }
+}
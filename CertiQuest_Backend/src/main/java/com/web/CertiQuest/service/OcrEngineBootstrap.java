@@ -0,0 +1,158 @@
+package com.web.CertiQuest.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Prepares OCR once at startup instead of on the first scanned PDF.
+ *
+ * Tessdata bundled on the classpath is copied to {@code ocr.tessdata-cache-dir}, which
+ * also works from inside a fat jar. {@code ocr.tessdata-path} points at an existing
+ * directory instead. OcrWorkerPool then starts and warms up its engines and reports
+ * back here. If either step fails the "ocr" health check is DOWN and, while
+ * {@code ocr.required} is true, the application reports itself as not ready.
+ */
+@Component("ocr")
+public class OcrEngineBootstrap implements InitializingBean, HealthIndicator {
+
+    private static final Logger logger = LoggerFactory.getLogger(OcrEngineBootstrap.class);
+
+    @Autowired
+    private ApplicationContext applicationContext;
+
+    @Value("${ocr.tessdata-path:}")
+    private String configuredTessdataPath;
+    @Value("${ocr.tessdata-cache-dir:${java.io.tmpdir}/certiquest-tessdata}")
+    private String tessdataCacheDir;
+    @Value("${ocr.language:eng}")
+    private String language;
+    @Value("${ocr.required:true}")
+    private boolean required;
+
+    private volatile String datapath;
+    private volatile boolean tessdataResolved;
+    private volatile boolean ready;
+    private volatile String failure;
+    private volatile int engines;
+    private volatile long warmUpMillis;
+
+    @Override
+    public void afterPropertiesSet() {
+        try {
+            datapath = resolveTessdata();
+            tessdataResolved = true;
+        } catch (Exception e) {
+            failure = e.getClass().getSimpleName() + ": " + e.getMessage();
+            logger.error("OCR is unavailable: {}", failure);
+        }
+    }
+
+    /**
+     * Whether the tessdata lookup succeeded, so that engines can be started.
+     */
+    public boolean hasTessdata() {
+        return tessdataResolved;
+    }
+
+    /**
+     * Called by OcrWorkerPool once its engines have loaded the model and read a sample page.
+     */
+    public void enginesStarted(int count, long warmUpMillis) {
+        this.engines = count;
+        this.warmUpMillis = warmUpMillis;
+        this.ready = true;
+        logger.info("OCR ready (tessdata {}, {} engines, warm-up {} ms)", datapath, count, warmUpMillis);
+    }
+
+    public void enginesFailed(Throwable error) {
+        failure = error.getClass().getSimpleName() + ": " + error.getMessage();
+        logger.error("OCR is unavailable: {}", failure);
+    }
+
+    /**
+     * Directory holding the tessdata files, or null to use Tesseract's default lookup.
+     */
+    public String getDatapath() {
+        return datapath;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @Override
+    public Health health() {
+        if (ready) {
+            return Health.up()
+                    .withDetail("tessdata", String.valueOf(datapath))
+                    .withDetail("engines", engines)
+                    .withDetail("warmUpMillis", warmUpMillis)
+                    .build();
+        }
+        return Health.down().withDetail("error", String.valueOf(failure)).build();
+    }
+
+    // Spring Boot marks the application ready after startup; take that back if OCR is required but broken
+    @EventListener
+    public void onReadinessChange(AvailabilityChangeEvent<ReadinessState> event) {
+        if (required && !ready && event.getState() == ReadinessState.ACCEPTING_TRAFFIC) {
+            AvailabilityChangeEvent.publish(applicationContext, ReadinessState.REFUSING_TRAFFIC);
+        }
+    }
+
+    private String resolveTessdata() throws IOException {
+        if (!configuredTessdataPath.isBlank()) {
+            Path configured = Path.of(configuredTessdataPath);
+            if (!Files.isDirectory(configured)) {
+                throw new IOException("ocr.tessdata-path " + configured + " is not a directory");
+            }
+            return configured.toAbsolutePath().toString();
+        }
+
+        Resource[] resources = new PathMatchingResourcePatternResolver().getResources("classpath*:tessdata/**");
+        Path target = Path.of(tessdataCacheDir);
+        int copied = 0;
+        int found = 0;
+        for (Resource resource : resources) {
+            String url = resource.getURL().toString();
+            String relative = url.substring(url.lastIndexOf("tessdata/") + "tessdata/".length());
+            if (relative.isEmpty() || relative.endsWith("/") || !resource.isReadable()) continue;
+
+            found++;
+            Path file = target.resolve(relative).normalize();
+            if (!file.startsWith(target)) continue;
+            if (Files.exists(file) && Files.size(file) == resource.contentLength()) continue;
+
+            Files.createDirectories(file.getParent());
+            try (InputStream in = resource.getInputStream()) {
+                Files.copy(in, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+            copied++;
+        }
+
+        if (found == 0) {
+            logger.warn("No tessdata on the classpath, relying on TESSDATA_PREFIX");
+            return null;
+        }
+        logger.info("Tessdata cache {}: {} files, {} copied", target, found, copied);
+        return target.toAbsolutePath().toString();
+    }
+}
@@ -0,0 +1,287 @@
+package com.web.CertiQuest.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import net.sourceforge.tess4j.Word;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Fixed set of Tesseract engines shared by the OCR executor threads. Each engine is
+ * initialised once at startup and reused for every page (see OcrEngine).
+ *
+ * Pages are OCR'd in parallel, one engine per page at a time, and returned in
+ * page order. PDFBox documents are not thread-safe, so rendering a page holds
+ * the document's lock; only the OCR itself runs concurrently.
+ *
+ * Pages are rendered in {@code ocr.image-type} (grayscale by default) at the first of
+ * {@code ocr.dpi-levels}, and rendered again at the next level only while Tesseract's
+ * mean confidence stays below {@code ocr.min-confidence}. Pixels and estimated OCR time
+ * saved against full-colour rendering at {@code ocr.baseline-dpi} are reported per document.
+ */
+@Component
+public class OcrWorkerPool {
+
+    private static final Logger logger = LoggerFactory.getLogger(OcrWorkerPool.class);
+
+    @Autowired
+    @Qualifier("ocrExecutor")
+    private Executor ocrExecutor;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private OcrEngineBootstrap ocrEngineBootstrap;
+
+    @Value("${ocr.workers:4}")
+    private int workers;
+    @Value("${ocr.language:eng}")
+    private String language;
+    @Value("${ocr.dpi-levels:150,300}")
+    private int[] dpiLevels;
+    @Value("${ocr.min-confidence:70}")
+    private int minConfidence;
+    @Value("${ocr.image-type:GRAY}")
+    private ImageType imageType;
+    @Value("${ocr.baseline-dpi:300}")
+    private int baselineDpi;
+
+    private BlockingQueue<OcrEngine> engines;
+    private volatile boolean started;
+
+    public record PageText(int page, String text, long renderMillis, long ocrMillis,
+                           int dpi, int confidence, long renderedPixels, long baselinePixels) {}
+
+    // Each engine loads the language model once here and reads a sample page, so the
+    // first real upload does not pay for either
+    @PostConstruct
+    void init() {
+        if (!ocrEngineBootstrap.hasTessdata()) return;
+        BlockingQueue<OcrEngine> created = new ArrayBlockingQueue<>(workers);
+        long start = System.nanoTime();
+        try {
+            BufferedImage sample = warmUpImage();
+            for (int i = 0; i < workers; i++) {
+                OcrEngine engine = new OcrEngine(ocrEngineBootstrap.getDatapath(), language);
+                created.add(engine);
+                engine.paragraphs(sample);
+            }
+        } catch (RuntimeException | LinkageError e) {
+            created.forEach(OcrEngine::close);
+            ocrEngineBootstrap.enginesFailed(e);
+            return;
+        }
+        engines = created;
+        started = true;
+        ocrEngineBootstrap.enginesStarted(workers, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    // Engines still lent to a page at shutdown are left to the process exit
+    @PreDestroy
+    void shutdown() {
+        if (!started) return;
+        List<OcrEngine> idle = new ArrayList<>();
+        engines.drainTo(idle);
+        idle.forEach(OcrEngine::close);
+    }
+
+    /**
+     * OCR the given zero-based pages of the document, in parallel.
+     */
+    public List<PageText> ocrPages(PDDocument document, List<Integer> pages) {
+        return ocrPages(document, pages, () -> {});
+    }
+
+    /**
+     * As above, calling {@code onPageDone} from the worker thread as each page finishes.
+     */
+    public List<PageText> ocrPages(PDDocument document, List<Integer> pages, Runnable onPageDone) {
+        if (!started) {
+            throw new RuntimeException("OCR is not available on this server, scanned pages cannot be read.");
+        }
+        PDFRenderer renderer = new PDFRenderer(document);
+        long start = System.nanoTime();
+
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<CompletableFuture<PageText>> futures = new ArrayList<>(pages.size());
+        for (int page : pages) {
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                PageText result = ocrPage(document, renderer, page, failure);
+                onPageDone.run();
+                return result;
+            }, ocrExecutor));
+        }
+        // On the first failure, queued pages are cancelled and running ones stop at their next step
+        for (CompletableFuture<PageText> future : futures) {
+            future.whenComplete((result, e) -> {
+                if (e != null && failure.compareAndSet(null, e instanceof CompletionException ? e.getCause() : e)) {
+                    futures.forEach(f -> f.cancel(false));
+                }
+            });
+        }
+
+        List<PageText> results = new ArrayList<>(pages.size());
+        try {
+            for (CompletableFuture<PageText> future : futures) {
+                results.add(future.join());
+            }
+        } catch (CompletionException | CancellationException e) {
+            // Report the page that failed first, not one cancelled because of it
+            Throwable cause = failure.get() != null ? failure.get() : e;
+            throw cause instanceof RuntimeException re ? re : new RuntimeException(cause);
+        }
+
+        long droppedPixels = 0;
+        long estimatedSavedMillis = 0;
+        for (PageText result : results) {
+            logger.debug("OCR page {}: {} dpi, confidence {}, render {} ms, ocr {} ms, {} chars",
+                    result.page() + 1, result.dpi(), result.confidence(),
+                    result.renderMillis(), result.ocrMillis(), result.text().length());
+            droppedPixels += result.baselinePixels() - result.renderedPixels();
+            // OCR time grows roughly with pixel count
+            if (result.renderedPixels() > 0) {
+                estimatedSavedMillis += result.ocrMillis() * result.baselinePixels() / result.renderedPixels()
+                        - result.ocrMillis();
+            }
+        }
+        meterRegistry.counter("pdf.ocr.pixels.dropped").increment(Math.max(0, droppedPixels));
+        meterRegistry.counter("pdf.ocr.time.saved.ms").increment(Math.max(0, estimatedSavedMillis));
+        logger.info("OCR of {} pages took {} ms (render {} ms, ocr {} ms summed over pages); "
+                        + "{} pixels fewer than {} dpi colour, about {} ms of OCR saved",
+                results.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+                results.stream().mapToLong(PageText::renderMillis).sum(),
+                results.stream().mapToLong(PageText::ocrMillis).sum(),
+                droppedPixels, baselineDpi, estimatedSavedMillis);
+        return results;
+    }
+
+    private PageText ocrPage(PDDocument document, PDFRenderer renderer, int page, AtomicReference<Throwable> failure) {
+        long renderNanos = 0;
+        long ocrNanos = 0;
+        long renderedPixels = 0;
+        String text = "";
+        int confidence = 0;
+        int dpi = dpiLevels[0];
+
+        OcrEngine engine = borrowEngine();
+        try {
+            for (int level = 0; level < dpiLevels.length; level++) {
+                if (failure.get() != null) {
+                    throw new CancellationException("OCR of page " + (page + 1) + " cancelled after another page failed");
+                }
+                dpi = dpiLevels[level];
+                if (level > 0) {
+                    meterRegistry.counter("pdf.ocr.escalations").increment();
+                }
+
+                long renderStart = System.nanoTime();
+                BufferedImage image;
+                try {
+                    synchronized (document) {
+                        image = renderer.renderImageWithDPI(page, dpi, imageType);
+                    }
+                } catch (IOException e) {
+                    throw new RuntimeException("Failed to render page " + (page + 1), e);
+                }
+                renderNanos += System.nanoTime() - renderStart;
+                renderedPixels += (long) image.getWidth() * image.getHeight();
+
+                long ocrStart = System.nanoTime();
+                List<Word> paragraphs = engine.paragraphs(image);
+                ocrNanos += System.nanoTime() - ocrStart;
+
+                text = joinParagraphs(paragraphs);
+                confidence = meanConfidence(paragraphs);
+                if (confidence >= minConfidence) break;
+            }
+        } finally {
+            engines.add(engine);
+        }
+
+        meterRegistry.timer("pdf.ocr.page", "stage", "render").record(renderNanos, TimeUnit.NANOSECONDS);
+        meterRegistry.timer("pdf.ocr.page", "stage", "ocr").record(ocrNanos, TimeUnit.NANOSECONDS);
+        return new PageText(page, text, TimeUnit.NANOSECONDS.toMillis(renderNanos),
+                TimeUnit.NANOSECONDS.toMillis(ocrNanos), dpi, confidence, renderedPixels,
+                baselinePixels(document, page));
+    }
+
+    // Tesseract separates paragraphs with a blank line in its plain text output
+    private static String joinParagraphs(List<Word> paragraphs) {
+        StringBuilder text = new StringBuilder();
+        for (Word paragraph : paragraphs) {
+            if (text.length() > 0) text.append('\n');
+            text.append(paragraph.getText());
+        }
+        return text.toString();
+    }
+
+    // Mean confidence weighted by paragraph length, 0 if nothing was recognised
+    private static int meanConfidence(List<Word> paragraphs) {
+        double weighted = 0;
+        long chars = 0;
+        for (Word paragraph : paragraphs) {
+            int length = paragraph.getText().trim().length();
+            weighted += paragraph.getConfidence() * length;
+            chars += length;
+        }
+        return chars == 0 ? 0 : (int) Math.round(weighted / chars);
+    }
+
+    private long baselinePixels(PDDocument document, int page) {
+        PDRectangle box;
+        synchronized (document) {
+            box = document.getPage(page).getCropBox();
+        }
+        double scale = baselineDpi / 72.0;
+        return Math.round(box.getWidth() * scale) * Math.round(box.getHeight() * scale);
+    }
+
+    private static BufferedImage warmUpImage() {
+        BufferedImage image = new BufferedImage(240, 60, BufferedImage.TYPE_BYTE_GRAY);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, image.getWidth(), image.getHeight());
+            g.setColor(Color.BLACK);
+            g.setFont(new Font(Font.SANS_SERIF, Font.PLAIN, 28));
+            g.drawString("Warm up 123", 10, 40);
+        } finally {
+            g.dispose();
+        }
+        return image;
+    }
+
+    private OcrEngine borrowEngine() {
+        try {
+            return engines.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for an OCR engine", e);
+        }
+    }
+}
@@ -7,7 +7,6 @@ import com.web.CertiQuest.dto.PaymentDto;
 import com.web.CertiQuest.dto.PaymentVerificationDto;
 import com.web.CertiQuest.model.PaymentTransaction;
 import com.web.CertiQuest.model.Profile;
-import com.web.CertiQuest.model.UserPoints;
 import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -155,12 +154,11 @@ public class PaymentService {
             }
 
             if (pointsToAdd > 0) {
-                UserPoints userPoints = userPointsService.getUserPoints(clerkId);
-                userPointsService.addPoints(clerkId, pointsToAdd, plan);
+                int newBalance = userPointsService.addPoints(clerkId, pointsToAdd, plan);
                 updateTransactionStatus(request.getRazorpay_order_id(), "SUCCESS", request.getRazorpay_payment_id(), pointsToAdd);
                 paymentDto.setSuccess(true);
                 paymentDto.setMessage(plan + " Plan activated. Points added successfully.");
-                paymentDto.setPoints(userPoints != null ? userPoints.getPoints() + pointsToAdd : pointsToAdd);
+                paymentDto.setPoints(newBalance);
             } else {
                 updateTransactionStatus(request.getRazorpay_order_id(), "FAILED", request.getRazorpay_payment_id(), null);
                 paymentDto.setSuccess(false);
@@ -0,0 +1,224 @@
+package com.web.CertiQuest.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.web.CertiQuest.model.QuizQuestion;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * On-disk cache of PDF extraction results keyed by the SHA-256 of the upload,
+ * so re-uploading the same file skips rendering and OCR.
+ *
+ * Each entry is a JSON file named after the hash in {@code pdf.cache.dir}. An in-memory
+ * LRU index of entry sizes is rebuilt from file modification times at startup; entries
+ * are evicted once there are more than {@code pdf.cache.max-entries} or they take more
+ * than {@code pdf.cache.max-bytes} in total.
+ */
+@Component
+public class PdfExtractionCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(PdfExtractionCache.class);
+
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${pdf.cache.enabled:true}")
+    private boolean enabled;
+    @Value("${pdf.cache.dir:${java.io.tmpdir}/certiquest-pdf-cache}")
+    private String cacheDir;
+    @Value("${pdf.cache.max-entries:500}")
+    private int maxEntries;
+    @Value("${pdf.cache.max-bytes:104857600}")
+    private long maxBytes;
+
+    // Hash -> entry file size, access-ordered
+    private final LinkedHashMap<String, Long> index = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong bytesSaved = new AtomicLong();
+
+    public record CachedQuestion(String question, List<String> options, String correctAnswer) {}
+
+    public record Extraction(String text, List<CachedQuestion> questions) {
+
+        /**
+         * Fresh question entities for the given category and difficulty.
+         */
+        public List<QuizQuestion> toQuestions(String category, String difficulty) {
+            List<QuizQuestion> result = new ArrayList<>(questions.size());
+            for (CachedQuestion cached : questions) {
+                QuizQuestion q = new QuizQuestion();
+                q.setCategory(category);
+                q.setDifficultyLevel(difficulty);
+                q.setQuestion(cached.question());
+                q.setOptions(new ArrayList<>(cached.options()));
+                q.setCorrectAnswer(cached.correctAnswer());
+                result.add(q);
+            }
+            return result;
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        FunctionCounter.builder("pdf.cache.requests", hits, AtomicLong::get)
+                .tag("result", "hit").register(meterRegistry);
+        FunctionCounter.builder("pdf.cache.requests", misses, AtomicLong::get)
+                .tag("result", "miss").register(meterRegistry);
+        FunctionCounter.builder("pdf.cache.bytes.saved", bytesSaved, AtomicLong::get)
+                .description("Bytes of uploaded PDF that did not have to be processed again")
+                .register(meterRegistry);
+        Gauge.builder("pdf.cache.hit.ratio", this, PdfExtractionCache::hitRatio).register(meterRegistry);
+        Gauge.builder("pdf.cache.size.bytes", this, c -> c.currentBytes()).register(meterRegistry);
+
+        if (enabled) loadIndex();
+    }
+
+    private void loadIndex() {
+        Path dir = Path.of(cacheDir);
+        try {
+            Files.createDirectories(dir);
+            try (Stream<Path> files = Files.list(dir)) {
+                List<Path> entries = files
+                        .filter(p -> p.getFileName().toString().endsWith(".json"))
+                        .sorted(Comparator.comparing(PdfExtractionCache::lastModified))
+                        .toList();
+                synchronized (this) {
+                    for (Path entry : entries) {
+                        long size = Files.size(entry);
+                        index.put(hashOf(entry), size);
+                        totalBytes += size;
+                    }
+                    evictOverflow();
+                }
+            }
+            logger.info("PDF extraction cache at {} holds {} entries", dir, index.size());
+        } catch (IOException e) {
+            logger.warn("PDF extraction cache disabled, cannot use {}: {}", dir, e.getMessage());
+            enabled = false;
+        }
+    }
+
+    public Optional<Extraction> get(String hash, long uploadBytes) {
+        if (!enabled) return Optional.empty();
+        synchronized (this) {
+            if (index.get(hash) == null) {
+                misses.incrementAndGet();
+                return Optional.empty();
+            }
+        }
+
+        Path entry = entryPath(hash);
+        try {
+            Extraction extraction = objectMapper.readValue(entry.toFile(), Extraction.class);
+            Files.setLastModifiedTime(entry, FileTime.fromMillis(System.currentTimeMillis()));
+            hits.incrementAndGet();
+            bytesSaved.addAndGet(uploadBytes);
+            return Optional.of(extraction);
+        } catch (IOException e) {
+            logger.warn("Dropping unreadable PDF cache entry {}: {}", hash, e.getMessage());
+            remove(hash);
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+    }
+
+    public void put(String hash, String text, List<QuizQuestion> questions) {
+        if (!enabled) return;
+        List<CachedQuestion> cached = questions.stream()
+                .map(q -> new CachedQuestion(q.getQuestion(), List.copyOf(q.getOptions()), q.getCorrectAnswer()))
+                .toList();
+
+        Path entry = entryPath(hash);
+        try {
+            File tmp = Files.createTempFile(entry.getParent(), hash, ".tmp").toFile();
+            objectMapper.writeValue(tmp, new Extraction(text, cached));
+            Files.move(tmp.toPath(), entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            long size = Files.size(entry);
+            synchronized (this) {
+                Long previous = index.put(hash, size);
+                totalBytes += size - (previous != null ? previous : 0);
+                evictOverflow();
+            }
+        } catch (IOException e) {
+            logger.warn("Could not cache PDF extraction {}: {}", hash, e.getMessage());
+        }
+    }
+
+    private synchronized void remove(String hash) {
+        Long size = index.remove(hash);
+        if (size != null) totalBytes -= size;
+        deleteQuietly(entryPath(hash));
+    }
+
+    private void evictOverflow() {
+        Iterator<Map.Entry<String, Long>> it = index.entrySet().iterator();
+        while ((index.size() > maxEntries || totalBytes > maxBytes) && it.hasNext()) {
+            Map.Entry<String, Long> eldest = it.next();
+            it.remove();
+            totalBytes -= eldest.getValue();
+            deleteQuietly(entryPath(eldest.getKey()));
+        }
+    }
+
+    private double hitRatio() {
+        long total = hits.get() + misses.get();
+        return total == 0 ? 0 : hits.get() / (double) total;
+    }
+
+    private synchronized long currentBytes() {
+        return totalBytes;
+    }
+
+    private Path entryPath(String hash) {
+        return Path.of(cacheDir, hash + ".json");
+    }
+
+    private static String hashOf(Path entry) {
+        String name = entry.getFileName().toString();
+        return name.substring(0, name.length() - ".json".length());
+    }
+
+    private static FileTime lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static void deleteQuietly(Path path) {
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            logger.warn("Could not delete PDF cache entry {}: {}", path, e.getMessage());
+        }
+    }
+}
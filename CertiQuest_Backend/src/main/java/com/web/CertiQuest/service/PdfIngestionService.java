@@ -0,0 +1,169 @@
+package com.web.CertiQuest.service;
+
+import com.web.CertiQuest.model.QuizQuestion;
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Reads an uploaded PDF and extracts quiz questions from it.
+ *
+ * The upload is spooled to a temp file while being hashed, rejected once it passes
+ * {@code pdf.upload.max-bytes}, and opened with PDFBox keeping at most
+ * {@code pdf.ingestion.max-main-memory} of its buffers on the heap (the rest goes to
+ * temp files). Heap use therefore does not grow with the size of the PDF. Setting
+ * {@code pdf.ingestion.spool-to-disk=false} reads uploads fully into memory instead.
+ */
+@Service
+public class PdfIngestionService {
+
+    @Autowired
+    private PdfTextExtractor pdfTextExtractor;
+    @Autowired
+    private PdfExtractionCache pdfExtractionCache;
+    @Autowired
+    private QuizQuestionService quizQuestionService;
+
+    @Value("${pdf.ingestion.spool-to-disk:true}")
+    private boolean spoolToDisk;
+    @Value("${pdf.ingestion.max-main-memory:8MB}")
+    private DataSize maxMainMemory;
+    @Value("${pdf.upload.max-bytes:25MB}")
+    private DataSize maxUploadBytes;
+    @Value("${pdf.upload.max-pages:200}")
+    private int maxPages;
+
+    /**
+     * An upload read off the request, either in a temp file or in memory.
+     * Call discard() once it has been processed.
+     */
+    public record SpooledUpload(String hash, long size, Path file, byte[] bytes) {
+
+        public void discard() {
+            if (file == null) return;
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException ignored) {
+                // Left for the OS to clean up with the rest of the temp dir
+            }
+        }
+    }
+
+    public List<QuizQuestion> extractQuestions(MultipartFile pdfFile, String category, String difficulty) {
+        SpooledUpload upload = spool(pdfFile);
+        try {
+            return extractQuestions(upload, category, difficulty, PdfTextExtractor.ProgressListener.NONE);
+        } finally {
+            upload.discard();
+        }
+    }
+
+    public List<QuizQuestion> extractQuestions(SpooledUpload upload, String category, String difficulty,
+                                               PdfTextExtractor.ProgressListener progress) {
+        // A file seen before is served from the cache without parsing, rendering or OCR
+        Optional<PdfExtractionCache.Extraction> cached = pdfExtractionCache.get(upload.hash(), upload.size());
+        if (cached.isPresent()) {
+            return cached.get().toQuestions(category, difficulty);
+        }
+
+        String pdfText;
+        try (PDDocument document = open(upload)) {
+            if (document.getNumberOfPages() > maxPages) {
+                throw new IllegalArgumentException("PDF has " + document.getNumberOfPages()
+                        + " pages, the limit is " + maxPages + ".");
+            }
+            pdfText = pdfTextExtractor.extractText(document, progress);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read PDF file", e);
+        }
+        if (pdfText.trim().isEmpty()) {
+            throw new RuntimeException("Cannot extract questions: PDF contains no text even after OCR.");
+        }
+
+        // Use improved extraction
+        List<QuizQuestion> questions = quizQuestionService.extractQuestionsFromText(pdfText, category, difficulty);
+        pdfExtractionCache.put(upload.hash(), pdfText, questions);
+        return questions;
+    }
+
+    /**
+     * Copy the upload off the request, hashing it on the way and enforcing the byte cap.
+     */
+    public SpooledUpload spool(MultipartFile pdfFile) {
+        if (pdfFile.getSize() > maxUploadBytes.toBytes()) {
+            throw uploadTooLarge();
+        }
+        MessageDigest sha256;
+        try {
+            sha256 = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        Path file = null;
+        try (InputStream in = new DigestInputStream(pdfFile.getInputStream(), sha256)) {
+            byte[] bytes = null;
+            long size;
+            if (spoolToDisk) {
+                file = Files.createTempFile("pdf-upload-", ".pdf");
+                try (OutputStream out = Files.newOutputStream(file)) {
+                    size = copyWithLimit(in, out);
+                }
+            } else {
+                bytes = in.readNBytes((int) Math.min(Integer.MAX_VALUE - 8, maxUploadBytes.toBytes() + 1));
+                if (bytes.length > maxUploadBytes.toBytes()) throw uploadTooLarge();
+                size = bytes.length;
+            }
+            return new SpooledUpload(HexFormat.of().formatHex(sha256.digest()), size, file, bytes);
+        } catch (IOException | RuntimeException e) {
+            if (file != null) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException ignored) {
+                    // Nothing more to do
+                }
+            }
+            if (e instanceof RuntimeException re) throw re;
+            throw new RuntimeException("Failed to read PDF file", e);
+        }
+    }
+
+    private long copyWithLimit(InputStream in, OutputStream out) throws IOException {
+        byte[] buffer = new byte[64 * 1024];
+        long total = 0;
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            total += read;
+            if (total > maxUploadBytes.toBytes()) throw uploadTooLarge();
+            out.write(buffer, 0, read);
+        }
+        return total;
+    }
+
+    private PDDocument open(SpooledUpload upload) throws IOException {
+        if (upload.file() == null) {
+            return PDDocument.load(upload.bytes());
+        }
+        return PDDocument.load(upload.file().toFile(), MemoryUsageSetting.setupMixed(maxMainMemory.toBytes()));
+    }
+
+    private IllegalArgumentException uploadTooLarge() {
+        return new IllegalArgumentException("PDF is larger than the " + maxUploadBytes.toMegabytes() + " MB limit.");
+    }
+}
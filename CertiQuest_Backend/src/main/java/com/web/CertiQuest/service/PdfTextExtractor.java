@@ -0,0 +1,105 @@
+package com.web.CertiQuest.service;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Turns a PDF into plain text, using the text layer where there is one and OCR otherwise.
+ *
+ * In per-page mode ({@code pdf.extraction.per-page}, the default) each page is
+ * stripped on its own and only pages with fewer than {@code pdf.extraction.min-text-chars}
+ * characters of text are sent to OCR. With per-page mode off, the whole document
+ * is OCR'd only when it has no text layer at all.
+ */
+@Component
+public class PdfTextExtractor {
+
+    private static final Logger logger = LoggerFactory.getLogger(PdfTextExtractor.class);
+
+    @Autowired
+    private OcrWorkerPool ocrWorkerPool;
+
+    @Value("${pdf.extraction.per-page:true}")
+    private boolean perPage;
+    @Value("${pdf.extraction.min-text-chars:20}")
+    private int minTextChars;
+
+    /**
+     * Receives page progress during extraction. onPageDone may be called from OCR worker threads.
+     */
+    public interface ProgressListener {
+        ProgressListener NONE = new ProgressListener() {};
+
+        default void onStart(int totalPages) {}
+
+        default void onPageDone() {}
+    }
+
+    public String extractText(PDDocument document) throws IOException {
+        return extractText(document, ProgressListener.NONE);
+    }
+
+    public String extractText(PDDocument document, ProgressListener progress) throws IOException {
+        progress.onStart(document.getNumberOfPages());
+        return perPage ? extractPerPage(document, progress) : extractWholeDocument(document, progress);
+    }
+
+    private String extractWholeDocument(PDDocument document, ProgressListener progress) throws IOException {
+        String text = new PDFTextStripper().getText(document);
+        if (!text.trim().isEmpty()) {
+            for (int page = 0; page < document.getNumberOfPages(); page++) progress.onPageDone();
+            return text;
+        }
+
+        List<Integer> pages = IntStream.range(0, document.getNumberOfPages()).boxed().toList();
+        StringBuilder ocrText = new StringBuilder();
+        for (OcrWorkerPool.PageText page : ocrWorkerPool.ocrPages(document, pages, progress::onPageDone)) {
+            ocrText.append(page.text()).append("\n");
+        }
+        return ocrText.toString();
+    }
+
+    private String extractPerPage(PDDocument document, ProgressListener progress) throws IOException {
+        int pageCount = document.getNumberOfPages();
+        String[] pageTexts = new String[pageCount];
+        List<Integer> imageOnlyPages = new ArrayList<>();
+
+        PDFTextStripper stripper = new PDFTextStripper();
+        for (int page = 0; page < pageCount; page++) {
+            stripper.setStartPage(page + 1);
+            stripper.setEndPage(page + 1);
+            String text = stripper.getText(document);
+            if (text.trim().length() >= minTextChars) {
+                pageTexts[page] = text;
+                progress.onPageDone();
+            } else {
+                imageOnlyPages.add(page);
+            }
+        }
+
+        if (!imageOnlyPages.isEmpty()) {
+            for (OcrWorkerPool.PageText page : ocrWorkerPool.ocrPages(document, imageOnlyPages, progress::onPageDone)) {
+                pageTexts[page.page()] = page.text();
+            }
+        }
+        logger.info("Extracted {} pages: {} from the text layer, {} by OCR",
+                pageCount, pageCount - imageOnlyPages.size(), imageOnlyPages.size());
+
+        StringBuilder text = new StringBuilder();
+        for (String pageText : pageTexts) {
+            text.append(pageText);
+            if (!pageText.endsWith("\n")) text.append("\n");
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,166 @@
+package com.web.CertiQuest.service;
+
+import com.web.CertiQuest.dao.UserPointsDao;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory view of user_points, the one store for points balances and plans.
+ *
+ * Reads load a user's balance once and keep it for {@code points.cache.ttl}. Writes in
+ * UserPointsService update the entry after their transaction commits and, with
+ * {@code points.cache.invalidation=kafka}, tell the other nodes to drop theirs.
+ * A stale entry can only affect what is displayed or pre-checked: debits are always
+ * decided by the conditional update in the database.
+ *
+ * Every entry carries the id of the latest points_transactions row it reflects. Loads,
+ * writes and invalidations can arrive in any order, so an entry is only ever replaced by
+ * one at the same or a newer ledger id.
+ */
+@Component
+public class PointsBalanceCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(PointsBalanceCache.class);
+
+    @Autowired
+    private UserPointsDao userPointsDao;
+    @Autowired
+    private KafkaTemplate<String, String> kafkaTemplate;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${points.cache.ttl:5m}")
+    private Duration ttl;
+    @Value("${points.cache.max-entries:50000}")
+    private int maxEntries;
+    @Value("${points.cache.invalidation:none}")
+    private String invalidation;
+    @Value("${points.cache.invalidation-topic:points-invalidation}")
+    private String invalidationTopic;
+
+    // Identifies this node's own invalidation messages, which it has already applied
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+    public record Balance(int points, String plan) {}
+
+    // balance is null for an invalidated entry, which keeps its version so older loads are not cached
+    private record Entry(Balance balance, long version, long expiresAt) {}
+
+    @PostConstruct
+    void registerMetrics() {
+        Gauge.builder("points.cache.size", entries, Map::size).register(meterRegistry);
+    }
+
+    /**
+     * The user's balance, loaded from the database on a miss. Empty if the user has no
+     * points account yet.
+     */
+    public Optional<Balance> get(String clerkId) {
+        Entry entry = entries.get(clerkId);
+        if (entry != null && entry.balance() != null && entry.expiresAt() > System.currentTimeMillis()) {
+            meterRegistry.counter("points.cache", "result", "hit").increment();
+            return Optional.of(entry.balance());
+        }
+        meterRegistry.counter("points.cache", "result", "miss").increment();
+        if (entries.size() >= maxEntries) {
+            evictSome();
+        }
+
+        // Loaded outside the map so the query does not block other keys; the version
+        // decides whether it may replace what the map holds by the time it returns
+        List<Object[]> rows = userPointsDao.findBalanceWithVersion(clerkId);
+        if (rows.isEmpty()) return Optional.empty();
+        Object[] row = rows.get(0);
+        Balance balance = new Balance(((Number) row[0]).intValue(), (String) row[1]);
+        apply(clerkId, new Entry(balance, ((Number) row[2]).longValue(), expiry()));
+        return Optional.of(balance);
+    }
+
+    /**
+     * Records the balance written by ledger entry {@code version} once the current
+     * transaction commits, and tells other nodes to drop older entries.
+     */
+    public void putAfterCommit(String clerkId, Balance balance, long version) {
+        afterCommit(() -> {
+            apply(clerkId, new Entry(balance, version, expiry()));
+            broadcastInvalidation(clerkId, version);
+        });
+    }
+
+    /**
+     * Applies an invalidation published by a node, ignoring this node's own.
+     * Format: {@code nodeId|clerkId|version}.
+     */
+    public void onInvalidation(String message) {
+        String[] parts = message.split("\\|", 3);
+        if (parts.length < 2 || parts[0].equals(nodeId)) return;
+        if (parts.length < 3) {
+            entries.remove(parts[1]);
+            return;
+        }
+        apply(parts[1], new Entry(null, Long.parseLong(parts[2]), expiry()));
+    }
+
+    // An invalidation only wins over an entry that is strictly older
+    private void apply(String clerkId, Entry update) {
+        entries.compute(clerkId, (id, current) -> {
+            if (current == null || update.version() > current.version()) return update;
+            return update.version() == current.version() && update.balance() != null ? update : current;
+        });
+    }
+
+    private long expiry() {
+        return System.currentTimeMillis() + ttl.toMillis();
+    }
+
+    private void broadcastInvalidation(String clerkId, long version) {
+        if (!"kafka".equalsIgnoreCase(invalidation)) return;
+        kafkaTemplate.send(invalidationTopic, clerkId, nodeId + "|" + clerkId + "|" + version)
+                .whenComplete((result, e) -> {
+                    if (e != null) {
+                        logger.warn("Could not publish points invalidation for {}: {}", clerkId, e.getMessage());
+                    }
+                });
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    // Drops roughly a tenth of the entries; recently loaded ones are as likely to go as old ones
+    private void evictSome() {
+        int toRemove = Math.max(1, maxEntries / 10);
+        Iterator<String> it = entries.keySet().iterator();
+        while (toRemove-- > 0 && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.web.CertiQuest.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Receives points cache invalidations from other nodes. Every node uses its own
+ * consumer group, so each one sees every message, starting from the latest.
+ */
+@Component
+@ConditionalOnProperty(name = "points.cache.invalidation", havingValue = "kafka")
+public class PointsInvalidationListener {
+
+    @Autowired
+    private PointsBalanceCache pointsBalanceCache;
+
+    @KafkaListener(topics = "${points.cache.invalidation-topic:points-invalidation}",
+            groupId = "points-cache-${random.uuid}",
+            properties = "auto.offset.reset=latest")
+    public void onInvalidation(String message) {
+        pointsBalanceCache.onInvalidation(message);
+    }
+}
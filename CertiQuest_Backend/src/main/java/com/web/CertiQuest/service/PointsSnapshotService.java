@@ -0,0 +1,45 @@
+package com.web.CertiQuest.service;
+
+import com.web.CertiQuest.dao.PointsSnapshotDao;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+/**
+ * Periodically records the balance of every account whose points changed since the
+ * last run, so auditing a balance never has to replay the whole ledger.
+ *
+ * Only ledger entries older than {@code points.snapshot.settle-seconds} are included;
+ * that leaves time for transactions that were still open to commit.
+ */
+@Service
+public class PointsSnapshotService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PointsSnapshotService.class);
+
+    @Autowired
+    private PointsSnapshotDao pointsSnapshotDao;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${points.snapshot.settle-seconds:60}")
+    private long settleSeconds;
+
+    @Scheduled(fixedDelayString = "${points.snapshot.interval-ms:3600000}",
+            initialDelayString = "${points.snapshot.initial-delay-ms:300000}")
+    @Transactional
+    public void snapshot() {
+        int taken = pointsSnapshotDao.snapshotChangedBalances(Instant.now().minusSeconds(settleSeconds));
+        meterRegistry.counter("points.snapshots").increment(taken);
+        if (taken > 0) {
+            logger.info("Snapshotted points balances for {} accounts", taken);
+        }
+    }
+}
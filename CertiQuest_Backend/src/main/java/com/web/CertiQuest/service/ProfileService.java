@@ -21,6 +21,8 @@ public class ProfileService {
     private ProfileDao repo;
     @Autowired
     private QuizDao quizDao;
+    @Autowired
+    private PointsBalanceCache pointsBalanceCache;
 
     private static final Profile.Plan DEFAULT_USER_PLAN = Profile.Plan.FREE;
     private static final int DEFAULT_USER_POINTS = 10;
@@ -49,9 +51,6 @@ public class ProfileService {
             profile.setPlan(DEFAULT_USER_PLAN);
         }
 
-        // Points only, no role
-        profile.setPoints(DEFAULT_USER_POINTS);
-
         profile = repo.save(profile);
         return mapToDto(profile);
     }
@@ -97,7 +96,6 @@ public class ProfileService {
             try {
                 Profile newProfile = new Profile();
                 newProfile.setClerkId(clerkId);
-                newProfile.setPoints(10);
                 newProfile.setCreatedAt(Instant.now());
                 profile = repo.save(newProfile);
             } catch (Exception e) {
@@ -109,10 +107,8 @@ public class ProfileService {
         return profile;
     }
 
-    public int getQuizzesCreatedThisMonth(int profileId) {
-        Profile profile = repo.findByClerkId(getCurrentProfile().getClerkId());
-        if (profile == null) return 0;
-        List<Quiz> quizzes = quizDao.findByCreatedBy(profile.getClerkId());
+    public int getQuizzesCreatedThisMonth() {
+        List<Quiz> quizzes = quizDao.findByCreatedBy(getCurrentProfile().getClerkId());
         YearMonth currentMonth = YearMonth.now();
         return (int) quizzes.stream()
                 .filter(q -> YearMonth.from(q.getCreatedAt()
@@ -121,11 +117,6 @@ public class ProfileService {
                 .count();
     }
 
-    public void incrementQuizCreatedCount(Profile profile) {
-        profile.setPoints(profile.getPoints() - 1);
-        repo.save(profile);
-    }
-
     private ProfileDto mapToDto(Profile profile) {
         ProfileDto dto = new ProfileDto();
         dto.setId(profile.getId());
@@ -134,7 +125,10 @@ public class ProfileService {
         dto.setFirstName(profile.getFirstName());
         dto.setLastName(profile.getLastName());
         dto.setPhotoUrl(profile.getPhotoUrl());
-        dto.setPoints(profile.getPoints());
+        // Balances live in user_points; the profile's own points column is no longer kept
+        dto.setPoints(pointsBalanceCache.get(profile.getClerkId())
+                .map(PointsBalanceCache.Balance::points)
+                .orElse(DEFAULT_USER_POINTS));
         dto.setCreatedAt(profile.getCreatedAt());
         dto.setPlan(profile.getPlan() != null ? profile.getPlan().name() : DEFAULT_USER_PLAN.name());
         return dto;
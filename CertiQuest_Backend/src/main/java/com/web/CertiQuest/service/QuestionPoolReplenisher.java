@@ -0,0 +1,86 @@
+package com.web.CertiQuest.service;
+
+import com.web.CertiQuest.dao.QuizQuestionDao;
+import com.web.CertiQuest.model.QuizQuestion;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Keeps the question pool for each requested (category, difficulty) topped up
+ * in the background, so quiz creation rarely has to wait for Cohere.
+ *
+ * The low watermark is the recent per-interval demand times {@code quiz.pool.low-intervals},
+ * never below {@code quiz.pool.min-depth}. When the depth drops under it the pool
+ * is refilled up to {@code quiz.pool.high-factor} times the low watermark.
+ */
+@Service
+public class QuestionPoolReplenisher {
+
+    private static final Logger logger = LoggerFactory.getLogger(QuestionPoolReplenisher.class);
+
+    @Autowired
+    private QuizQuestionDao quizQuestionDao;
+    @Autowired
+    private QuizQuestionService quizQuestionService;
+    @Autowired
+    private QuestionPoolStats poolStats;
+    @Autowired
+    private DuplicateQuestionIndex duplicateIndex;
+
+    @Value("${quiz.pool.replenisher.enabled:true}")
+    private boolean enabled;
+    @Value("${quiz.pool.min-depth:20}")
+    private int minDepth;
+    @Value("${quiz.pool.low-intervals:3}")
+    private double lowIntervals;
+    @Value("${quiz.pool.high-factor:2.0}")
+    private double highFactor;
+    @Value("${quiz.pool.demand-smoothing:0.3}")
+    private double demandSmoothing;
+    @Value("${quiz.pool.max-refill-per-run:20}")
+    private int maxRefillPerRun;
+
+    @Scheduled(fixedDelayString = "${quiz.pool.replenisher.interval-ms:60000}",
+            initialDelayString = "${quiz.pool.replenisher.initial-delay-ms:30000}")
+    public void replenish() {
+        if (!enabled) return;
+
+        for (QuestionPoolStats.PoolState pool : poolStats.trackedPools()) {
+            try {
+                replenish(pool);
+            } catch (Exception e) {
+                logger.warn("Pool refill failed for {}: {}", pool.getKey(), e.getMessage());
+            }
+        }
+    }
+
+    private void replenish(QuestionPoolStats.PoolState pool) {
+        String category = pool.getKey().category();
+        String difficulty = pool.getKey().difficulty();
+
+        double demand = poolStats.rollDemand(pool, demandSmoothing);
+        long low = Math.max(minDepth, (long) Math.ceil(demand * lowIntervals));
+        long high = (long) Math.ceil(low * highFactor);
+
+        long depth = quizQuestionDao.countByCategoryAndDifficultyLevel(category, difficulty);
+        poolStats.updateDepth(pool, depth, low);
+        if (depth >= low) return;
+
+        int toGenerate = (int) Math.min(high - depth, maxRefillPerRun);
+        List<QuizQuestion> generated = duplicateIndex
+                .partition(quizQuestionService.generateAiQuestions(category, difficulty, toGenerate, false))
+                .fresh();
+        duplicateIndex.addAfterCommit(quizQuestionDao.saveAll(generated));
+
+        long newDepth = depth + generated.size();
+        poolStats.updateDepth(pool, newDepth, low);
+        logger.info("Replenished pool {}: {} -> {} (low={}, high={})",
+                pool.getKey(), depth, newDepth, low, high);
+    }
+}
@@ -0,0 +1,104 @@
+package com.web.CertiQuest.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per (category, difficulty) bookkeeping for the question pool: recent demand,
+ * last observed depth and how long a pool has been below its low watermark.
+ * Depth and refill lag are exported through Micrometer.
+ */
+@Component
+public class QuestionPoolStats {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<PoolKey, PoolState> pools = new ConcurrentHashMap<>();
+
+    public record PoolKey(String category, String difficulty) {}
+
+    public static class PoolState {
+        private final PoolKey key;
+        private final AtomicLong pendingDemand = new AtomicLong();
+        private volatile double demandRate;
+        private volatile long depth = -1;
+        private volatile Instant belowLowSince;
+        private Timer refillLag;
+
+        PoolState(PoolKey key) {
+            this.key = key;
+        }
+
+        public PoolKey getKey() { return key; }
+        public double getDemandRate() { return demandRate; }
+        public long getDepth() { return depth; }
+        public Instant getBelowLowSince() { return belowLowSince; }
+
+        double pendingLagSeconds() {
+            Instant since = belowLowSince;
+            return since == null ? 0 : Duration.between(since, Instant.now()).toMillis() / 1000.0;
+        }
+    }
+
+    public void recordDemand(String category, String difficulty, int noOfQuestions) {
+        if (category == null || difficulty == null || noOfQuestions <= 0) return;
+        state(new PoolKey(category, difficulty)).pendingDemand.addAndGet(noOfQuestions);
+    }
+
+    public Collection<PoolState> trackedPools() {
+        return pools.values();
+    }
+
+    /**
+     * Folds the demand seen since the previous call into an exponentially
+     * weighted per-interval rate and returns the new rate.
+     */
+    double rollDemand(PoolState state, double alpha) {
+        long requested = state.pendingDemand.getAndSet(0);
+        state.demandRate = alpha * requested + (1 - alpha) * state.demandRate;
+        return state.demandRate;
+    }
+
+    void updateDepth(PoolState state, long depth, long lowWatermark) {
+        state.depth = depth;
+        if (depth < lowWatermark) {
+            if (state.belowLowSince == null) state.belowLowSince = Instant.now();
+        } else if (state.belowLowSince != null) {
+            state.refillLag.record(Duration.between(state.belowLowSince, Instant.now()));
+            state.belowLowSince = null;
+        }
+    }
+
+    private PoolState state(PoolKey key) {
+        return pools.computeIfAbsent(key, this::register);
+    }
+
+    private PoolState register(PoolKey key) {
+        PoolState state = new PoolState(key);
+        Gauge.builder("quiz.pool.depth", state, PoolState::getDepth)
+                .description("Questions available for a category/difficulty")
+                .tags("category", key.category(), "difficulty", key.difficulty())
+                .register(meterRegistry);
+        Gauge.builder("quiz.pool.refill.pending", state, PoolState::pendingLagSeconds)
+                .description("Seconds the pool has been below its low watermark")
+                .baseUnit("seconds")
+                .tags("category", key.category(), "difficulty", key.difficulty())
+                .register(meterRegistry);
+        state.refillLag = Timer.builder("quiz.pool.refill.lag")
+                .description("Time from dropping below the low watermark until refilled")
+                .tags("category", key.category(), "difficulty", key.difficulty())
+                .register(meterRegistry);
+        return state;
+    }
+}
@@ -0,0 +1,281 @@
+package com.web.CertiQuest.service;
+
+import com.web.CertiQuest.model.QuizQuestion;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Single-pass scanner that turns extracted PDF text into quiz questions.
+ *
+ * It produces exactly what the original regex cascade did. The text is cut into pages
+ * (form feed, or a line break followed by a blank line) and pages into parts at
+ * "Question N:" / "N." markers. Each line of a part is then read as the question,
+ * an option ("A) ..."), or the answer ("Answer: ..."). Everything is decided with
+ * character tests while walking the text once, so no patterns are compiled or
+ * matched per line.
+ */
+final class QuestionTextExtractor {
+
+    private static final String ANSWER_MARKER = "answer:";
+    private static final String QUESTION_MARKER = "question";
+
+    private final String text;
+    private final int length;
+    private final String category;
+    private final String difficulty;
+    private final List<QuizQuestion> extracted = new ArrayList<>();
+
+    private QuestionTextExtractor(String text, String category, String difficulty) {
+        this.text = text;
+        this.length = text.length();
+        this.category = category;
+        this.difficulty = difficulty;
+    }
+
+    static List<QuizQuestion> extract(String text, String category, String difficulty) {
+        QuestionTextExtractor extractor = new QuestionTextExtractor(text, category, difficulty);
+        extractor.scan();
+        return extractor.extracted;
+    }
+
+    private void scan() {
+        int pageStart = 0;
+        int partStart = 0;
+        int i = 0;
+        while (i < length) {
+            // Page breaks take precedence: a part marker never reaches into the next page
+            int pageBreakEnd = pageBreakEnd(i);
+            if (pageBreakEnd >= 0) {
+                emitPart(partStart, i);
+                i = pageBreakEnd;
+                pageStart = partStart = i;
+                continue;
+            }
+            int partBreakEnd = partBreakEnd(i, pageStart);
+            if (partBreakEnd >= 0) {
+                emitPart(partStart, i);
+                i = partStart = partBreakEnd;
+                continue;
+            }
+            i++;
+        }
+        emitPart(partStart, length);
+    }
+
+    /**
+     * End of the page break starting at i, or -1. A page break is a form feed, or a
+     * line break whose following run of whitespace holds another line break; it
+     * extends to the last line break in that run.
+     */
+    private int pageBreakEnd(int i) {
+        char c = text.charAt(i);
+        if (c == '\f') return i + 1;
+
+        int newline;
+        if (c == '\n') {
+            newline = i;
+        } else if (c == '\r' && i + 1 < length && text.charAt(i + 1) == '\n') {
+            newline = i + 1;
+        } else {
+            return -1;
+        }
+
+        int lastNewline = -1;
+        for (int k = newline + 1; k < length && isSpace(text.charAt(k)); k++) {
+            if (text.charAt(k) == '\n') lastNewline = k;
+        }
+        return lastNewline < 0 ? -1 : lastNewline + 1;
+    }
+
+    /**
+     * End of the question marker starting at i, or -1. A marker is "question N" followed
+     * by ':', '.' or '-', or "N." followed by whitespace, either at the start of the page
+     * or after a whitespace character (which it swallows).
+     */
+    private int partBreakEnd(int i, int pageStart) {
+        boolean atPageStart = i == pageStart;
+        boolean afterSpace = isSpace(text.charAt(i));
+        if (!atPageStart && !afterSpace) return -1;
+
+        int end = -1;
+        if (atPageStart) end = questionMarkerEnd(i);
+        if (end < 0 && afterSpace) end = questionMarkerEnd(i + 1);
+        if (end < 0 && atPageStart) end = numberMarkerEnd(i);
+        if (end < 0 && afterSpace) end = numberMarkerEnd(i + 1);
+        return end;
+    }
+
+    private int questionMarkerEnd(int from) {
+        if (from + QUESTION_MARKER.length() > length) return -1;
+        for (int k = 0; k < QUESTION_MARKER.length(); k++) {
+            if ((text.charAt(from + k) | 0x20) != QUESTION_MARKER.charAt(k)) return -1;
+        }
+        int k = skipSpacesWithinPage(from + QUESTION_MARKER.length());
+        int digitsStart = k;
+        while (k < length && isDigit(text.charAt(k))) k++;
+        if (k == digitsStart || k >= length) return -1;
+        char c = text.charAt(k);
+        return c == ':' || c == '.' || c == '-' ? k + 1 : -1;
+    }
+
+    private int numberMarkerEnd(int from) {
+        int k = from;
+        while (k < length && isDigit(text.charAt(k))) k++;
+        if (k == from || k >= length || text.charAt(k) != '.') return -1;
+        int spacesStart = k + 1;
+        int end = skipSpacesWithinPage(spacesStart);
+        return end > spacesStart ? end : -1;
+    }
+
+    private int skipSpacesWithinPage(int k) {
+        while (k < length && isSpace(text.charAt(k)) && pageBreakEnd(k) < 0) k++;
+        return k;
+    }
+
+    // ---------------- Parts ----------------
+
+    private void emitPart(int start, int end) {
+        while (start < end && text.charAt(start) <= ' ') start++;
+        while (end > start && text.charAt(end - 1) <= ' ') end--;
+        if (start == end) return;
+
+        String question = null;
+        List<String> options = new ArrayList<>();
+        String answerLine = null;
+
+        int lineStart = start;
+        while (lineStart <= end) {
+            int newline = text.indexOf('\n', lineStart);
+            int next;
+            int lineEnd;
+            if (newline < 0 || newline >= end) {
+                lineEnd = end;
+                next = end + 1;
+            } else {
+                lineEnd = newline > lineStart && text.charAt(newline - 1) == '\r' ? newline - 1 : newline;
+                next = newline + 1;
+            }
+
+            boolean hasAnswer = containsAnswerMarker(lineStart, lineEnd);
+            if (question == null && !hasAnswer && !isBlank(lineStart, lineEnd) && !isLetterLabel(lineStart, lineEnd)) {
+                question = text.substring(lineStart, lineEnd).trim();
+            }
+            if (isOption(lineStart, lineEnd)) {
+                options.add(optionText(lineStart, lineEnd));
+            }
+            if (answerLine == null && hasAnswer) {
+                answerLine = text.substring(lineStart, lineEnd);
+            }
+            lineStart = next;
+        }
+
+        if (options.size() < 4) {
+            options = List.of("Option A", "Option B", "Option C", "Option D");
+        }
+
+        QuizQuestion q = new QuizQuestion();
+        q.setCategory(category);
+        q.setDifficultyLevel(difficulty);
+        q.setQuestion(question != null ? question : "Sample question");
+        q.setOptions(options);
+        q.setCorrectAnswer(answerLine != null ? resolveAnswer(answerLine, options) : options.get(0));
+        extracted.add(q);
+    }
+
+    /**
+     * "A) text" / "b. text": a letter label that keeps a line from being the question.
+     */
+    private boolean isLetterLabel(int start, int end) {
+        return end - start >= 2
+                && isOptionLetter(text.charAt(start))
+                && (text.charAt(start + 1) == ')' || text.charAt(start + 1) == '.')
+                && !hasLineTerminator(start + 2, end);
+    }
+
+    /**
+     * "A) text", "c. text", "2> text" and the like.
+     */
+    private boolean isOption(int start, int end) {
+        if (end - start < 2) return false;
+        char label = text.charAt(start);
+        return (isOptionLetter(label) || (label >= '1' && label <= '4'))
+                && isOptionDelimiter(text.charAt(start + 1))
+                && !hasLineTerminator(start + 2, end);
+    }
+
+    private String optionText(int start, int end) {
+        int k = start + 1;
+        while (k < end && isOptionDelimiter(text.charAt(k))) k++;
+        while (k < end && isSpace(text.charAt(k))) k++;
+        return text.substring(k, end);
+    }
+
+    private boolean containsAnswerMarker(int start, int end) {
+        int last = end - ANSWER_MARKER.length();
+        outer:
+        for (int i = start; i <= last; i++) {
+            for (int k = 0; k < ANSWER_MARKER.length(); k++) {
+                char c = text.charAt(i + k);
+                char expected = ANSWER_MARKER.charAt(k);
+                if (c != expected && (expected == ':' || (c | 0x20) != expected)) continue outer;
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private static String resolveAnswer(String line, List<String> options) {
+        // Index into the lower-cased line, as the original did
+        String s = line.substring(line.toLowerCase().indexOf(ANSWER_MARKER) + ANSWER_MARKER.length()).trim();
+
+        // Remove a leading label such as 'b)', 'a.', '1.'
+        if (!s.isEmpty() && (isDigit(s.charAt(0)) || isOptionLetter(s.charAt(0)))) {
+            int k = 1;
+            if (k < s.length() && (isOptionDelimiter(s.charAt(k)) || s.charAt(k) == ']')) k++;
+            while (k < s.length() && isSpace(s.charAt(k))) k++;
+            s = s.substring(k);
+        }
+
+        // A single letter picks the option at that position
+        if (s.length() == 1 && isOptionLetter(s.charAt(0))) {
+            return options.get(Character.toUpperCase(s.charAt(0)) - 'A');
+        }
+        return s;
+    }
+
+    private boolean isBlank(int start, int end) {
+        for (int k = start; k < end; k++) {
+            if (text.charAt(k) > ' ') return false;
+        }
+        return true;
+    }
+
+    /**
+     * Characters a regex '.' refuses to match; a line containing one never counted as an option.
+     */
+    private boolean hasLineTerminator(int start, int end) {
+        for (int k = start; k < end; k++) {
+            char c = text.charAt(k);
+            if (c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') return true;
+        }
+        return false;
+    }
+
+    private static boolean isOptionLetter(char c) {
+        return (c >= 'A' && c <= 'D') || (c >= 'a' && c <= 'd');
+    }
+
+    private static boolean isOptionDelimiter(char c) {
+        return c == ')' || c == '.' || c == '>';
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    // Same set as the regex \s
+    private static boolean isSpace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+}
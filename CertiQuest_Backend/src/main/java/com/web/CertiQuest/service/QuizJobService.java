@@ -0,0 +1,193 @@
+package com.web.CertiQuest.service;
+
+import com.web.CertiQuest.model.Quiz;
+import com.web.CertiQuest.model.QuizJob;
+import com.web.CertiQuest.model.QuizQuestion;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.concurrent.DelegatingSecurityContextRunnable;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+public class QuizJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(QuizJobService.class);
+
+    @Autowired
+    private QuizService quizService;
+    @Autowired
+    private QuizQuestionService quizQuestionService;
+    @Autowired
+    @Qualifier("quizGenerationExecutor")
+    private ThreadPoolTaskExecutor executor;
+    @Autowired
+    private PdfIngestionService pdfIngestionService;
+    @Autowired
+    @Qualifier("pdfIngestionExecutor")
+    private ThreadPoolTaskExecutor pdfExecutor;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${quiz.jobs.retention-minutes:30}")
+    private long retentionMinutes;
+
+    private final Map<String, QuizJob> jobs = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void registerMetrics() {
+        Gauge.builder("pdf.ingestion.queue.depth", pdfExecutor, e -> e.getThreadPoolExecutor().getQueue().size())
+                .description("PDF ingestion jobs waiting for a worker")
+                .register(meterRegistry);
+        Gauge.builder("pdf.ingestion.workers.active", pdfExecutor, ThreadPoolTaskExecutor::getActiveCount)
+                .description("PDF ingestion workers currently busy")
+                .register(meterRegistry);
+        Gauge.builder("pdf.ingestion.workers.utilisation", pdfExecutor,
+                        e -> e.getActiveCount() / (double) e.getMaxPoolSize())
+                .description("Fraction of PDF ingestion workers busy")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Validates the request on the caller's thread, then queues question generation
+     * and persistence on the bounded executor. Throws TaskRejectedException when the
+     * executor is saturated.
+     */
+    public QuizJob submitQuizCreation(String title, String category, String difficulty,
+                                      int noOfQuestions, String createdBy) {
+        quizService.checkQuizCreationAllowed(difficulty, noOfQuestions);
+
+        QuizJob job = new QuizJob(UUID.randomUUID().toString(), createdBy);
+        jobs.put(job.getId(), job);
+
+        // Worker threads need the caller's authentication for point deduction
+        SecurityContext context = SecurityContextHolder.createEmptyContext();
+        context.setAuthentication(SecurityContextHolder.getContext().getAuthentication());
+
+        Runnable task = () -> runQuizCreation(job, title, category, difficulty, noOfQuestions, createdBy);
+        try {
+            executor.execute(new DelegatingSecurityContextRunnable(task, context));
+        } catch (RuntimeException e) {
+            jobs.remove(job.getId());
+            throw e;
+        }
+        return job;
+    }
+
+    /**
+     * Validates the upload and stores it off the request, then queues extraction, OCR and
+     * parsing on the PDF ingestion pool. The quiz is saved in a short transaction at the end.
+     * Throws TaskRejectedException when the queue is full.
+     */
+    public QuizJob submitPdfIngestion(MultipartFile pdfFile, String title, String category,
+                                      String difficulty, String createdBy) {
+        quizService.validatePdfUpload(pdfFile);
+        quizService.checkQuizCreationAllowed(difficulty, 1);
+
+        PdfIngestionService.SpooledUpload upload = pdfIngestionService.spool(pdfFile);
+        String originalFilename = pdfFile.getOriginalFilename();
+
+        QuizJob job = new QuizJob(UUID.randomUUID().toString(), createdBy);
+        jobs.put(job.getId(), job);
+
+        SecurityContext context = SecurityContextHolder.createEmptyContext();
+        context.setAuthentication(SecurityContextHolder.getContext().getAuthentication());
+
+        Runnable task = () -> runPdfIngestion(job, upload, originalFilename, title,
+                category != null ? category : "General",
+                difficulty != null ? difficulty : "Medium",
+                createdBy);
+        try {
+            pdfExecutor.execute(new DelegatingSecurityContextRunnable(task, context));
+        } catch (RuntimeException e) {
+            jobs.remove(job.getId());
+            upload.discard();
+            throw e;
+        }
+        return job;
+    }
+
+    public Optional<QuizJob> getJob(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    private void runQuizCreation(QuizJob job, String title, String category, String difficulty,
+                                 int noOfQuestions, String createdBy) {
+        try {
+            job.setStatus(QuizJob.Status.GENERATING);
+            List<QuizQuestion> questions = quizQuestionService.getOrCreateQuiz(category, difficulty, noOfQuestions);
+
+            job.setStatus(QuizJob.Status.PERSISTING);
+            Quiz quiz = quizService.saveGeneratedQuiz(title, category, difficulty, noOfQuestions, createdBy, questions);
+
+            job.setQuizId(quiz.getId());
+            job.setStatus(QuizJob.Status.COMPLETED);
+        } catch (Exception e) {
+            logger.error("Quiz creation job {} failed: {}", job.getId(), e.getMessage());
+            job.setError(e.getMessage());
+            job.setStatus(QuizJob.Status.FAILED);
+        }
+    }
+
+    private void runPdfIngestion(QuizJob job, PdfIngestionService.SpooledUpload upload, String originalFilename,
+                                 String title, String category, String difficulty, String createdBy) {
+        try {
+            job.setStatus(QuizJob.Status.EXTRACTING);
+            List<QuizQuestion> questions = pdfIngestionService.extractQuestions(upload, category, difficulty,
+                    new PdfTextExtractor.ProgressListener() {
+                        @Override
+                        public void onStart(int totalPages) {
+                            job.startExtraction(totalPages);
+                        }
+
+                        @Override
+                        public void onPageDone() {
+                            job.pageDone();
+                        }
+                    });
+
+            // Reuse stored questions for near-duplicates instead of inserting them again
+            questions = quizQuestionService.mergeNearDuplicates(questions, List.of());
+            job.setQuestionsFound(questions.size());
+            if (questions.isEmpty()) {
+                throw new RuntimeException("No quiz questions could be extracted from PDF.");
+            }
+
+            job.setStatus(QuizJob.Status.PERSISTING);
+            Quiz quiz = quizService.savePdfQuiz(title, category, difficulty, createdBy, originalFilename, questions);
+
+            job.setQuizId(quiz.getId());
+            job.setStatus(QuizJob.Status.COMPLETED);
+        } catch (Exception e) {
+            logger.error("PDF ingestion job {} failed: {}", job.getId(), e.getMessage());
+            job.setError(e.getMessage());
+            job.setStatus(QuizJob.Status.FAILED);
+        } finally {
+            upload.discard();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${quiz.jobs.cleanup-interval-ms:60000}")
+    public void evictFinishedJobs() {
+        Instant cutoff = Instant.now().minus(Duration.ofMinutes(retentionMinutes));
+        jobs.values().removeIf(job -> job.isFinished() && job.getUpdatedAt().isBefore(cutoff));
+    }
+}
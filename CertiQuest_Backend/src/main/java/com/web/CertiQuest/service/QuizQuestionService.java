@@ -1,21 +1,26 @@
 package com.web.CertiQuest.service;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.web.CertiQuest.dao.QuizQuestionDao;
+import com.web.CertiQuest.generator.GeneratorUnavailableException;
+import com.web.CertiQuest.generator.QuestionGenerator;
 import com.web.CertiQuest.model.QuizQuestion;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.client.RestTemplate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.stream.Collectors;
 
 @Service
@@ -25,103 +30,150 @@ public class QuizQuestionService {
 
     @Autowired
     private QuizQuestionDao quizQuestionDao;
+    @Autowired
+    private QuestionPoolStats poolStats;
+    @Autowired
+    private DuplicateQuestionIndex duplicateIndex;
+    @Autowired
+    private GenerationCache generationCache;
+
+    @Autowired
+    private QuestionGenerator questionGenerator;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    @Qualifier("cohereChunkExecutor")
+    private Executor chunkExecutor;
 
-    @Value("${cohere.api.key}")
-    private String cohereApiKey;
+    @Value("${quiz.generation.chunk-size:10}")
+    private int chunkSize;
+    @Value("${quiz.generation.chunk-retries:1}")
+    private int chunkRetries;
+    @Value("${quiz.generation.top-up-rounds:2}")
+    private int topUpRounds;
 
-    private final ObjectMapper objectMapper;
-    private final RestTemplate restTemplate = new RestTemplate();
+    private final GenerationCoalescer coalescer;
 
-    public QuizQuestionService(ObjectMapper objectMapper) {
-        this.objectMapper = objectMapper;
+    public QuizQuestionService(@Value("${quiz.generation.coalesce-window-ms:50}") long coalesceWindowMillis) {
+        this.coalescer = new GenerationCoalescer(this::generateUpstream, coalesceWindowMillis);
     }
 
-    // ---------------- Prompt builder ----------------
-    private String buildPrompt(String category, String difficulty, int noOfQuestions) {
-        return String.format("""
-                Generate %d multiple-choice quiz questions in the category '%s' with difficulty '%s'.
-                Each question must have 4 unique options.
-                Format the response strictly as a valid JSON array like this:
-                [
-                  {
-                    "question": "Example question?",
-                    "options": ["A", "B", "C", "D"],
-                    "correctAnswer": "A"
-                  }
-                ]
-                Do not include explanations or any text outside the JSON array.
-                """, noOfQuestions, category, difficulty);
+    // ---------------- Generate questions ----------------
+    /**
+     * Generate questions with the configured QuestionGenerator only. Unlike generateQuestions
+     * this never falls back to placeholder questions, so the result is safe to store in the pool.
+     */
+    public List<QuizQuestion> generateAiQuestions(String category, String difficulty, int count) {
+        return generateAiQuestions(category, difficulty, count, true);
     }
 
-    // ---------------- Call Cohere API ----------------
-    private String callCohereAPI(String prompt) {
-        try {
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            headers.set("Authorization", "Bearer " + cohereApiKey);
-
-            Map<String, Object> requestBody = Map.of(
-                    "model", "command-nightly",
-                    "message", prompt,
-                    "max_tokens", 3000,
-                    "temperature", 0.7
-            );
-
-            HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
-            Map<String, Object> response = restTemplate.postForObject(
-                    "https://api.cohere.ai/v1/chat",
-                    entity,
-                    Map.class
-            );
-
-            if (response != null && response.get("text") != null) {
-                String rawText = response.get("text").toString().trim();
-                String cleaned = cleanJsonResponse(rawText);
-                logger.debug("Raw Cohere response: {}", rawText);
-                logger.debug("Cleaned JSON response: {}", cleaned);
-                return cleaned;
-            }
+    /**
+     * As above; with {@code useCache} false every chunk goes to the generator, for
+     * callers such as the pool replenisher that need questions not seen before.
+     */
+    public List<QuizQuestion> generateAiQuestions(String category, String difficulty, int count, boolean useCache) {
+        if (count <= chunkSize) {
+            return generateChunkWithRetry(category, difficulty, count, useCache);
+        }
 
-            throw new RuntimeException("No text in Cohere API response: " + response);
+        // Large requests are split into chunks generated in parallel; the executor size caps concurrency
+        List<CompletableFuture<List<QuizQuestion>>> chunks = new ArrayList<>();
+        for (int start = 0; start < count; start += chunkSize) {
+            int size = Math.min(chunkSize, count - start);
+            chunks.add(CompletableFuture.supplyAsync(
+                    () -> generateChunkWithRetry(category, difficulty, size, useCache), chunkExecutor));
+        }
 
-        } catch (Exception e) {
-            logger.error("Error calling Cohere API: {}", e.getMessage());
-            throw new RuntimeException("Error calling Cohere API", e);
+        List<QuizQuestion> questions = new ArrayList<>();
+        RuntimeException failure = null;
+        for (CompletableFuture<List<QuizQuestion>> chunk : chunks) {
+            try {
+                questions.addAll(chunk.join());
+            } catch (CompletionException e) {
+                failure = e.getCause() instanceof RuntimeException re ? re : e;
+            }
         }
+
+        if (questions.isEmpty() && failure != null) {
+            throw failure;
+        }
+        return questions;
     }
 
-    // ---------------- Clean response ----------------
-    private String cleanJsonResponse(String text) {
-        if (text == null) return null;
-        text = text.trim();
+    /**
+     * Generate one chunk, re-requesting only the questions that were missing or
+     * invalid, up to quiz.generation.chunk-retries extra attempts.
+     */
+    private List<QuizQuestion> generateChunkWithRetry(String category, String difficulty, int size, boolean useCache) {
+        List<QuizQuestion> valid = new ArrayList<>();
+        RuntimeException lastError = null;
+
+        for (int attempt = 0; attempt <= chunkRetries && valid.size() < size; attempt++) {
+            try {
+                List<QuizQuestion> generated = generateChunk(category, difficulty, size - valid.size(), useCache);
+                generated.stream()
+                        .limit(size - valid.size())
+                        .forEach(valid::add);
+            } catch (GeneratorUnavailableException e) {
+                // Retrying cannot help while the breaker is open or the bulkhead is full
+                lastError = e;
+                break;
+            } catch (RuntimeException e) {
+                lastError = e;
+                logger.warn("Chunk of {} questions failed (attempt {}): {}", size, attempt + 1, e.getMessage());
+            }
+        }
 
-        if (text.startsWith("```json")) text = text.substring(7).trim();
-        else if (text.startsWith("```")) text = text.substring(3).trim();
-        if (text.endsWith("```")) text = text.substring(0, text.length() - 3).trim();
+        if (valid.isEmpty() && lastError != null) {
+            throw lastError;
+        }
+        return valid;
+    }
 
-        if (text.startsWith("\"") && text.endsWith("\"")) {
-            text = text.substring(1, text.length() - 1)
-                    .replace("\\\"", "\"")
-                    .replace("\\n", "")
-                    .replace("\\r", "");
+    private List<QuizQuestion> generateChunk(String category, String difficulty, int count, boolean useCache) {
+        if (useCache) {
+            Optional<List<QuizQuestion>> cached = generationCache.draw(category, difficulty, count);
+            if (cached.isPresent()) return cached.get();
         }
 
-        return text;
+        // Drop malformed entries
+        List<QuizQuestion> generated = questionGenerator.generate(category, difficulty, count).stream()
+                .filter(this::isValidQuestion)
+                .collect(Collectors.toList());
+        // Cached until a caller stores it (see GenerationCache.evictPersisted). Uncached
+        // callers always store their questions, so caching them would only churn the cache
+        if (useCache) {
+            generationCache.put(category, difficulty, count, generated);
+        }
+        return generated;
     }
 
-    // ---------------- Generate questions ----------------
+    private boolean isValidQuestion(QuizQuestion q) {
+        if (q.getQuestion() == null || q.getQuestion().isBlank()) return false;
+        List<String> opts = q.getOptions();
+        if (opts == null || opts.size() != 4 || new HashSet<>(opts).size() != 4) return false;
+        return q.getCorrectAnswer() != null
+                && opts.stream().anyMatch(o -> o.equalsIgnoreCase(q.getCorrectAnswer()));
+    }
+
+    private List<QuizQuestion> generateUpstream(String category, String difficulty, int count) {
+        meterRegistry.counter("quiz.generation.upstream.calls").increment();
+        return generateAiQuestions(category, difficulty, count);
+    }
+
+    /**
+     * Concurrent calls for the same category and difficulty share upstream requests
+     * (see GenerationCoalescer). Falls back to placeholder questions if Cohere fails,
+     * but returns nothing when the generator is unavailable so callers use the pool only.
+     */
     public List<QuizQuestion> generateQuestions(String category, String difficulty, int count) {
         List<QuizQuestion> generated = new ArrayList<>();
 
         try {
-            // Generate prompt
-            String prompt = buildPrompt(category, difficulty, count);
-            String jsonResponse = callCohereAPI(prompt);
-
-            // Parse JSON into QuizQuestion objects
-            List<QuizQuestion> aiQuestions = parseQuestions(jsonResponse, category, difficulty);
-            generated.addAll(aiQuestions);
-
+            meterRegistry.counter("quiz.generation.requests").increment();
+            generated.addAll(coalescer.generate(category, difficulty, count));
+        } catch (GeneratorUnavailableException e) {
+            logger.warn("Question generator unavailable ({}), serving from the pool only.", e.getMessage());
         } catch (Exception e) {
             logger.error("AI generation failed: {}, using fallback.", e.getMessage());
 
@@ -143,118 +195,86 @@ public class QuizQuestionService {
     // ---------------- Get or create quiz ----------------
     @Transactional(readOnly = true)
     public List<QuizQuestion> getOrCreateQuiz(String category, String difficulty, int noOfQuestions) {
-        List<QuizQuestion> existing = quizQuestionDao.findByCategoryAndDifficultyLevel(category, difficulty);
-
-        if (existing.size() >= noOfQuestions) {
-            Collections.shuffle(existing);
-            return existing.stream()
-                    .limit(noOfQuestions)
-                    .collect(Collectors.toList());
+        poolStats.recordDemand(category, difficulty, noOfQuestions);
+        List<QuizQuestion> result = samplePool(category, difficulty, noOfQuestions);
+
+        // Generated questions that near-duplicate ones already chosen are dropped, so the
+        // shortfall is generated again (up to quiz.generation.top-up-rounds more times)
+        for (int round = 0; round <= topUpRounds && result.size() < noOfQuestions; round++) {
+            List<QuizQuestion> generated = generateQuestions(category, difficulty, noOfQuestions - result.size());
+            if (generated.isEmpty()) break;
+            result.addAll(mergeNearDuplicates(generated, result));
         }
 
-        int needed = noOfQuestions - existing.size();
-        List<QuizQuestion> generated = generateQuestions(category, difficulty, needed);
-
-        List<QuizQuestion> result = new ArrayList<>(existing);
-        result.addAll(generated);
+        if (result.isEmpty()) {
+            throw new RuntimeException("Question generation is temporarily unavailable, please try again later.");
+        }
+        if (result.size() < noOfQuestions) {
+            throw new RuntimeException("Only " + result.size() + " of " + noOfQuestions
+                    + " questions are available right now, please try again later or ask for fewer.");
+        }
         return result;
     }
 
-    // ---------------- Parse questions ----------------
-    private List<QuizQuestion> parseQuestions(String json, String category, String difficulty) {
-        try {
-            List<Map<String, Object>> questionMaps = objectMapper.readValue(json, new TypeReference<>() {});
-            List<QuizQuestion> questions = new ArrayList<>();
+    /**
+     * Picks up to {@code count} random questions from the pool using the indexed
+     * random_key column: a range scan from a random point, wrapping around to the
+     * start if needed. Only the chosen ids are loaded, with their options, so the
+     * cost depends on count rather than pool size. Returns the whole pool if it is
+     * smaller than count. Only questions not yet in a quiz are sampled: adding one
+     * that is would move it out of the quiz that owns it.
+     */
+    private List<QuizQuestion> samplePool(String category, String difficulty, int count) {
+        double from = ThreadLocalRandom.current().nextDouble();
+        List<Integer> ids = new ArrayList<>(
+                quizQuestionDao.findSampleIdsFrom(category, difficulty, from, PageRequest.of(0, count)));
+        if (ids.size() < count) {
+            ids.addAll(quizQuestionDao.findSampleIdsBefore(category, difficulty, from,
+                    PageRequest.of(0, count - ids.size())));
+        }
+        if (ids.isEmpty()) return new ArrayList<>();
 
-            for (Map<String, Object> map : questionMaps) {
-                QuizQuestion q = new QuizQuestion();
-                q.setCategory(category);
-                q.setDifficultyLevel(difficulty);
-                q.setQuestion((String) map.get("question"));
-
-                // Handle options (ensure List<String>)
-                Object opts = map.get("options");
-                if (opts instanceof List<?>) {
-                    q.setOptions(((List<?>) opts).stream()
-                            .map(Object::toString)
-                            .collect(Collectors.toList()));
-                } else {
-                    q.setOptions(List.of("Option A", "Option B", "Option C", "Option D"));
-                }
-
-                q.setCorrectAnswer((String) map.getOrDefault("correctAnswer", "Option A"));
-                questions.add(q);
-            }
+        // Re-checked on load, in case a sampled question was attached to a quiz meanwhile
+        List<QuizQuestion> sampled = new ArrayList<>(quizQuestionDao.findPoolWithOptionsByIdIn(ids));
+        Collections.shuffle(sampled);
+        return sampled;
+    }
 
-            return questions;
+    /**
+     * Replaces candidates that near-duplicate a stored pool question with that stored
+     * question (unless it is already in {@code chosen}) and drops duplicates within
+     * the candidate list itself. Only questions not yet in a quiz are reused; adding
+     * one that is would move it out of its quiz, so such a candidate stays a new row.
+     */
+    public List<QuizQuestion> mergeNearDuplicates(List<QuizQuestion> candidates, List<QuizQuestion> chosen) {
+        DuplicateQuestionIndex.Partition partition = duplicateIndex.partition(candidates);
+        List<QuizQuestion> merged = new ArrayList<>(partition.fresh());
+
+        Set<Integer> chosenIds = chosen.stream().map(QuizQuestion::getId).collect(Collectors.toSet());
+        Map<Integer, QuizQuestion> duplicated = new LinkedHashMap<>(partition.duplicates());
+        duplicated.keySet().removeAll(chosenIds);
+        if (!duplicated.isEmpty()) {
+            for (QuizQuestion pooled : quizQuestionDao.findPoolWithOptionsByIdIn(duplicated.keySet())) {
+                duplicated.remove(pooled.getId());
+                merged.add(pooled);
+            }
+            merged.addAll(duplicated.values());
+        }
+        return merged;
+    }
 
-        } catch (Exception e) {
-            logger.error("Error parsing Cohere JSON response: {}", e.getMessage());
-            throw new RuntimeException("Error parsing Cohere response: " + json, e);
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfillRandomKeys() {
+        int updated = quizQuestionDao.backfillRandomKeys();
+        if (updated > 0) {
+            logger.info("Assigned random sampling keys to {} existing questions", updated);
         }
     }
 
     // ---------------- Extract questions from text ----------------
     public List<QuizQuestion> extractQuestionsFromText(String pdfText, String category, String difficulty) {
-        List<QuizQuestion> extracted = new ArrayList<>();
-        // Split by pages using form-feed or multiple newlines (covers most PDF text extractors)
-        String[] pages = pdfText.split("\\f|\\r?\\n\\s*\\r?\\n+");
-
-        for (String page : pages) {
-            // Split questions per page using patterns like "1." or "Question 1"
-            String[] parts = page.split("(?i)(?:^|\\s)question\\s*\\d+[:.-]|(?:^|\\s)\\d+\\.\\s+");
-            for (String part : parts) {
-                if (part.trim().isEmpty()) continue;
-
-                QuizQuestion q = new QuizQuestion();
-                q.setCategory(category);
-                q.setDifficultyLevel(difficulty);
-
-                // Try to separate question and options
-                String[] lines = part.trim().split("\\r?\\n");
-                // Find the first non-option, non-answer line as the question
-                String questionText = Arrays.stream(lines)
-                        .filter(l -> !l.trim().isEmpty() && !l.matches("^[A-Da-d][\\).].*") && !l.toLowerCase().contains("answer:"))
-                        .findFirst()
-                        .orElse("Sample question");
-                q.setQuestion(questionText.trim());
-
-                // Extract options: lines starting with A/B/C/D or similar
-                List<String> opts = Arrays.stream(lines)
-                        .filter(l -> l.matches("^[A-Da-d1-4][\\).>].*"))  // accept options starting with A-D, a-d, 1-4 followed by ), ., or >
-                        .map(l -> l.replaceFirst("^[A-Da-d1-4][\\).>]+\\s*", ""))  // remove prefix + whitespace
-                        .collect(Collectors.toList());
-                // Ensure 4 options
-                if (opts.size() < 4) {
-                    opts = List.of("Option A", "Option B", "Option C", "Option D");
-                }
-                q.setOptions(opts);
-
-                // Extract correct answer
-                List<String> finalOpts = opts;
-                String correct = Arrays.stream(lines)
-                        .filter(l -> l.toLowerCase().contains("answer:"))
-                        .findFirst()
-                        .map(l -> {
-                            String s = l.substring(l.toLowerCase().indexOf("answer:") + 7).trim();
-                            // Remove leading label such as 'b)', 'a.', '1.' if present
-                            s = s.replaceFirst("^[\\dA-Da-d][\\).>\\]]?\\s*", "");
-                            // Try to match single letter answer to option text
-                            if (s.matches("^[A-Da-d]$")) {
-                                int idx = "ABCD".indexOf(s.toUpperCase());
-                                return idx >= 0 && idx < finalOpts.size() ? finalOpts.get(idx) : finalOpts.get(0);
-                            } else {
-                                return s;
-                            }
-                        })
-                        .orElse(opts.get(0));
-                q.setCorrectAnswer(correct);
-
-                extracted.add(q);
-            }
-        }
-
-        return extracted;
+        return QuestionTextExtractor.extract(pdfText, category, difficulty);
     }
 
 }
@@ -37,7 +37,9 @@ public class QuizResultService {
             dto.setScore(result.getScore());
             dto.setTotal(result.getTotalQuestions());
             dto.setSubmittedAt(result.getAttemptedAt());
-            dto.setParticipants(quiz != null ? quiz.getParticipants() : Collections.emptyList());
+            // Clients only check whether the user is in this list, so don't send every participant
+            dto.setParticipants(quiz != null && quizRepository.isParticipant(quiz.getId(), userId)
+                    ? List.of(userId) : Collections.emptyList());
             return dto;
         }).collect(Collectors.toList());
     }
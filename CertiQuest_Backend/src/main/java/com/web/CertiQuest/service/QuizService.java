@@ -3,34 +3,33 @@ package com.web.CertiQuest.service;
 import com.web.CertiQuest.dao.QuizDao;
 import com.web.CertiQuest.dao.QuizQuestionDao;
 import com.web.CertiQuest.dao.QuizResultDao;
-import com.web.CertiQuest.dao.UserPointsDao;
 import com.web.CertiQuest.dto.QuizSubmissionDto;
 import com.web.CertiQuest.model.*;
-import net.sourceforge.tess4j.ITesseract;
-import net.sourceforge.tess4j.Tesseract;
-import org.apache.pdfbox.rendering.ImageType;
-import org.apache.pdfbox.rendering.PDFRenderer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
-import org.apache.pdfbox.pdmodel.PDDocument;
-import org.apache.pdfbox.text.PDFTextStripper;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 
-import java.awt.image.BufferedImage;
-import java.io.File;
-import java.io.InputStream;
 import java.time.Instant;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class QuizService {
 
+    private static final Logger logger = LoggerFactory.getLogger(QuizService.class);
+
     @Autowired
     private QuizDao quizDao;
     @Autowired
@@ -44,25 +43,89 @@ public class QuizService {
     @Autowired
     private UserPointsService userPointsService;
     @Autowired
-    private UserPointsDao userPointsDao;
+    private DuplicateQuestionIndex duplicateIndex;
+    @Autowired
+    private GenerationCache generationCache;
+    @Autowired
+    private PdfIngestionService pdfIngestionService;
+    @Autowired
+    private AnswerKeyCache answerKeyCache;
+    @Autowired
+    private SubmissionPipeline submissionPipeline;
+    @Autowired
+    private SubmissionDedupStore submissionDedupStore;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
 
     private static final String TOPIC = "quiz-admin";
 
     /**
-     * Create a new quiz and deduct points
+     * Create a new quiz and deduct points. The debit comes last so the user_points row
+     * is not locked while questions are generated.
      */
     @Transactional
     public Quiz createQuiz(String title, String category, String difficulty, int noOfQuestions, String createdBy) {
+        checkQuizCreationAllowed(difficulty, noOfQuestions);
+
+        // Get questions (may be existing pool items or newly generated)
+        List<QuizQuestion> questions = quizQuestionService.getOrCreateQuiz(category, difficulty, noOfQuestions);
+
         userPointsService.consumePoints(1)
                 .orElseThrow(() -> new RuntimeException("Insufficient points to create quiz"));
 
+        return buildAndSaveQuiz(title, category, difficulty, noOfQuestions, createdBy, questions);
+    }
+
+    /**
+     * Same checks as createQuiz, without deducting points. Used to reject
+     * background jobs up front instead of after the questions are generated.
+     */
+    public void checkQuizCreationAllowed(String difficulty, int noOfQuestions) {
         if (noOfQuestions <= 0) {
             throw new IllegalArgumentException("Number of questions must be greater than zero.");
         }
+        if (!userPointsService.hasEnoughPoints(1)) {
+            throw new RuntimeException("Insufficient points to create quiz");
+        }
+
+        validateAdminPlanForQuizCreation(difficulty, noOfQuestions);
+    }
+
+    /**
+     * Persist a quiz whose questions were generated outside a transaction
+     * (background jobs). Points are only deducted here, once the questions exist.
+     */
+    @Transactional
+    public Quiz saveGeneratedQuiz(String title, String category, String difficulty, int noOfQuestions,
+                                  String createdBy, List<QuizQuestion> questions) {
+        userPointsService.consumePoints(1)
+                .orElseThrow(() -> new RuntimeException("Insufficient points to create quiz"));
+
+        validateAdminPlanForQuizCreation(difficulty, noOfQuestions);
 
-        Profile creator = profileService.getCurrentProfile();
-        validateAdminPlanForQuizCreation(creator, difficulty, noOfQuestions);
+        return buildAndSaveQuiz(title, category, difficulty, noOfQuestions, createdBy,
+                attachPoolQuestions(questions));
+    }
+
+    /**
+     * Persist a quiz built from a PDF by a background ingestion job, in one short
+     * transaction after extraction has finished.
+     */
+    @Transactional
+    public Quiz savePdfQuiz(String title, String category, String difficulty, String createdBy,
+                            String originalFilename, List<QuizQuestion> questions) {
+        userPointsService.consumePoints(1)
+                .orElseThrow(() -> new RuntimeException("Insufficient points to create quiz"));
 
+        validateAdminPlanForQuizCreation(difficulty, questions.size());
+
+        String quizTitle = title != null && !title.isEmpty() ? title : "User uploaded quiz: " + originalFilename;
+        return buildAndSaveQuiz(quizTitle, category, difficulty, questions.size(), createdBy,
+                attachPoolQuestions(questions));
+    }
+
+    private Quiz buildAndSaveQuiz(String title, String category, String difficulty,
+                                  int noOfQuestions, String createdBy, List<QuizQuestion> questions) {
         Quiz quiz = new Quiz();
         quiz.setTitle(title);
         quiz.setCategory(category);
@@ -72,106 +135,107 @@ public class QuizService {
         quiz.setCreatedBy(createdBy);
         quiz.setExpiryDate(LocalDate.now().plusDays(7));
 
-        // Get questions (may be existing pool items or newly generated)
-        List<QuizQuestion> questions = quizQuestionService.getOrCreateQuiz(category, difficulty, noOfQuestions);
-
         for (QuizQuestion q : questions) {
             quiz.addQuestion(q);
         }
 
         Quiz savedQuiz = quizDao.save(quiz);
-        System.out.println(savedQuiz);
+        duplicateIndex.addAfterCommit(savedQuiz.getQuestions());
+        generationCache.evictPersisted(savedQuiz.getQuestions());
+        logger.debug("Saved quiz {} with {} questions", savedQuiz.getId(), savedQuiz.getQuestions().size());
 
-        profileService.incrementQuizCreatedCount(creator);
         return savedQuiz;
     }
 
     /**
-     * Create a quiz from a PDF and deduct points
+     * Pool questions loaded in an earlier transaction are detached; swap them
+     * for managed instances so the cascade on Quiz does not try to re-insert them.
+     */
+    private List<QuizQuestion> attachPoolQuestions(List<QuizQuestion> questions) {
+        List<Integer> ids = questions.stream()
+                .map(QuizQuestion::getId)
+                .filter(id -> id > 0)
+                .collect(Collectors.toList());
+        if (ids.isEmpty()) return questions;
+
+        Map<Integer, QuizQuestion> managed = quizQuestionDao.findAllById(ids).stream()
+                .collect(Collectors.toMap(QuizQuestion::getId, Function.identity()));
+
+        return questions.stream()
+                .map(q -> q.getId() > 0 ? managed.getOrDefault(q.getId(), q) : q)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Create a quiz from a PDF and deduct points. Extraction (including OCR) runs outside
+     * any transaction; only the final save holds a database connection.
      */
-    @Transactional
     public Quiz createQuizFromPdf(MultipartFile pdfFile, String title,
                                   String category, String difficulty, String createdBy) {
-        userPointsService.consumePoints(1)
-                .orElseThrow(() -> new RuntimeException("Insufficient points to create quiz"));
-
-        if (pdfFile == null || pdfFile.isEmpty()) {
-            throw new IllegalArgumentException("PDF file is required.");
-        }
-        if (!"application/pdf".equalsIgnoreCase(pdfFile.getContentType())) {
-            throw new IllegalArgumentException("Only PDF files are supported.");
+        validatePdfUpload(pdfFile);
+        if (!userPointsService.hasEnoughPoints(1)) {
+            throw new RuntimeException("Insufficient points to create quiz");
         }
 
-        String pdfText = "";
-        try (InputStream pdfInputStream = pdfFile.getInputStream();
-             PDDocument document = PDDocument.load(pdfInputStream)) {
-
-            PDFTextStripper stripper = new PDFTextStripper();
-            pdfText = stripper.getText(document);
-
-            if (pdfText.trim().isEmpty()) {
-                PDFRenderer pdfRenderer = new PDFRenderer(document);
-                StringBuilder ocrText = new StringBuilder();
-                ITesseract tesseract = new Tesseract();
-                File tessDataFolder = new File(getClass().getClassLoader().getResource("tessdata").getFile());
-                tesseract.setDatapath(tessDataFolder.getAbsolutePath());
-                tesseract.setLanguage("eng");
-
-                for (int page = 0; page < document.getNumberOfPages(); page++) {
-                    BufferedImage image = pdfRenderer.renderImageWithDPI(page, 300, ImageType.RGB);
-                    String result = tesseract.doOCR(image);
-                    ocrText.append(result).append("\n");
-                }
-                pdfText = ocrText.toString();
-                if (pdfText.trim().isEmpty()) {
-                    throw new RuntimeException("Cannot extract questions: PDF contains no text even after OCR.");
-                }
-            }
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to read PDF file", e);
-        }
-
-        // Use improved extraction
-        List<QuizQuestion> questions = quizQuestionService.extractQuestionsFromText(
-                pdfText,
+        List<QuizQuestion> questions = pdfIngestionService.extractQuestions(pdfFile,
                 category != null ? category : "General",
-                difficulty != null ? difficulty : "Medium"
-        );
+                difficulty != null ? difficulty : "Medium");
+
+        // Reuse stored questions for near-duplicates instead of inserting them again
+        questions = quizQuestionService.mergeNearDuplicates(questions, List.of());
 
         if (questions.isEmpty()) {
             throw new RuntimeException("No quiz questions could be extracted from PDF.");
         }
 
-        Profile creator = profileService.getCurrentProfile();
-        validateAdminPlanForQuizCreation(creator, difficulty, questions.size());
-
-        Quiz quiz = new Quiz();
-        quiz.setTitle(title != null && !title.isEmpty() ? title : "User uploaded quiz: " + pdfFile.getOriginalFilename());
-        quiz.setCategory(category != null ? category : "General");
-        quiz.setDifficulty(difficulty != null ? difficulty : "Medium");
-        quiz.setCreatedBy(createdBy);
-        quiz.setNoOfQuestions(questions.size());
-        quiz.setCreatedAt(Instant.now());
-        quiz.setExpiryDate(LocalDate.now().plusDays(7));
+        // savePdfQuiz's own @Transactional does not apply to a call from this class
+        List<QuizQuestion> extracted = questions;
+        return transactionTemplate.execute(status -> savePdfQuiz(title,
+                category != null ? category : "General",
+                difficulty != null ? difficulty : "Medium",
+                createdBy, pdfFile.getOriginalFilename(), extracted));
+    }
 
-        // Use addQuestion to set both sides and persist via cascade
-        for (QuizQuestion q : questions) {
-            quiz.addQuestion(q);
+    public void validatePdfUpload(MultipartFile pdfFile) {
+        if (pdfFile == null || pdfFile.isEmpty()) {
+            throw new IllegalArgumentException("PDF file is required.");
+        }
+        if (!"application/pdf".equalsIgnoreCase(pdfFile.getContentType())) {
+            throw new IllegalArgumentException("Only PDF files are supported.");
         }
-
-        Quiz savedQuiz = quizDao.save(quiz);
-
-        profileService.incrementQuizCreatedCount(creator);
-
-        return savedQuiz;
     }
 
     /**
      * Evaluate submission and deduct 1 point for attending quiz
      */
     public QuizResult evaluateAndSaveResult(QuizSubmissionDto submission, String userId) {
-        userPointsService.consumePoints(1)
-                .orElseThrow(() -> new RuntimeException("Insufficient points to attend quiz"));
+        return evaluateAndSaveResult(submission, userId, null);
+    }
+
+    /**
+     * Same as above, but a repeated idempotency key returns the first result without
+     * charging, scoring or saving again.
+     */
+    public QuizResult evaluateAndSaveResult(QuizSubmissionDto submission, String userId, String idempotencyKey) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return evaluateAndStore(submission, userId, null);
+        }
+        if (idempotencyKey.length() > 200) {
+            throw new IllegalArgumentException("Idempotency key must be at most 200 characters");
+        }
+        String submissionId = SubmissionDedupStore.submissionId(userId, submission.getQuizId(), idempotencyKey);
+        return submissionDedupStore.submitOnce(submissionId,
+                () -> evaluateAndStore(submission, userId, submissionId));
+    }
+
+    private QuizResult evaluateAndStore(QuizSubmissionDto submission, String userId, String submissionId) {
+        // Checked before charging: a write-behind result for a missing quiz would only fail in the writer
+        if (submission.getQuizId() <= 0) {
+            throw new IllegalArgumentException("Invalid quizId: " + submission.getQuizId());
+        }
+        if (!quizDao.existsById(submission.getQuizId())) {
+            throw new IllegalArgumentException("Quiz not found with id: " + submission.getQuizId());
+        }
 
         int score = calculateScore(submission);
 
@@ -180,28 +244,56 @@ public class QuizService {
         result.setUserId(userId);
         result.setScore(score);
         result.setTotalQuestions(submission.getAnswers().size());
-        quizResultDao.save(result);
+        result.setSubmissionId(submissionId);
+
+        if (submissionPipeline.isWriteBehind()) {
+            // The result row is only written later, so a keyed submission reserves its id in
+            // the charging transaction: a retry on another node then finds it, uncharged
+            QuizResult original = transactionTemplate.execute(status -> {
+                if (submissionId != null) {
+                    Optional<QuizResult> reserved = submissionDedupStore.reserve(result);
+                    if (reserved.isPresent()) return reserved.get();
+                }
+                userPointsService.consumePoints(1)
+                        .orElseThrow(() -> new RuntimeException("Insufficient points to attend quiz"));
+                return null;
+            });
+            if (original != null) {
+                return original;
+            }
 
-        if (submission.getQuizId() <= 0) {
-            throw new RuntimeException("Invalid quizId: " + submission.getQuizId());
+            // The result row and participant entry are written later by SubmissionWriter
+            QuizSubmissionEvent event = new QuizSubmissionEvent(result.getQuizId(), userId, score,
+                    result.getTotalQuestions(), result.getAttemptedAt());
+            if (submissionId != null) {
+                event.setSubmissionId(submissionId);
+            }
+            result.setSubmissionId(event.getSubmissionId());
+            submissionPipeline.publish(event);
+            return result;
         }
 
-        Quiz quiz = quizDao.findById(submission.getQuizId())
-                .orElseThrow(() -> new RuntimeException("Quiz not found with id: " + submission.getQuizId()));
-
-        if (!quiz.getParticipants().contains(userId)) {
-            quiz.getParticipants().add(userId);
-            quizDao.save(quiz);
+        // Charge and store together: a retry with the same key on another node either sees
+        // this row or fails on submission_id, and then gets this row without being charged
+        try {
+            return transactionTemplate.execute(status -> {
+                QuizResult saved = quizResultDao.save(result);
+                quizDao.addParticipantIfAbsent(submission.getQuizId(), userId);
+                userPointsService.consumePoints(1)
+                        .orElseThrow(() -> new RuntimeException("Insufficient points to attend quiz"));
+                return saved;
+            });
+        } catch (DataIntegrityViolationException e) {
+            if (submissionId == null) throw e;
+            return quizResultDao.findBySubmissionId(submissionId).orElseThrow(() -> e);
         }
-
-        return result;
     }
 
     // ====================== Other Methods Stay Same ======================
-    private void validateAdminPlanForQuizCreation(Profile user, String difficulty, int noOfQuestions) {
-        String userId = user.getClerkId();
-        Optional<UserPoints> userPoints = userPointsDao.findByClerkId(userId);
-        String plan = userPoints.get().getPlan();
+    private void validateAdminPlanForQuizCreation(String difficulty, int noOfQuestions) {
+        String plan = userPointsService.getBalanceForCurrentUser()
+                .orElseThrow(() -> new RuntimeException("User not Authenticated"))
+                .plan();
 
         switch (plan) {
             case "BASIC" -> {
@@ -211,7 +303,7 @@ public class QuizService {
                 if ("HARD".equalsIgnoreCase(difficulty)) {
                     throw new RuntimeException("Free plan users cannot create HARD difficulty quizzes.");
                 }
-                int createdThisMonth = profileService.getQuizzesCreatedThisMonth(user.getId());
+                int createdThisMonth = profileService.getQuizzesCreatedThisMonth();
                 if (createdThisMonth >= 5) {
                     throw new RuntimeException("Free plan users can only create 5 quizzes per month.");
                 }
@@ -232,18 +324,7 @@ public class QuizService {
     }
 
     public int calculateScore(QuizSubmissionDto submission) {
-        AtomicInteger score = new AtomicInteger();
-        for (QuizSubmissionDto.UserAnswer ans : submission.getAnswers()) {
-            quizQuestionDao.findById(ans.getQuestionId())
-                    .ifPresent(question -> {
-                        if (question.getCorrectAnswer().equalsIgnoreCase(ans.getSelectedAnswer())) {
-                            synchronized (this) {
-                                score.getAndIncrement();
-                            }
-                        }
-                    });
-        }
-        return score.get();
+        return answerKeyCache.score(submission);
     }
 
     public Quiz updateQuiz(int id, String title, String difficulty, int noOfQuestions) {
@@ -254,6 +335,7 @@ public class QuizService {
 
         boolean difficultyChanged = !quiz.getDifficulty().equals(difficulty);
         boolean questionCountChanged = quiz.getNoOfQuestions() != noOfQuestions;
+        List<Integer> replacedIds = new ArrayList<>();
 
         if (difficultyChanged || questionCountChanged) {
             quiz.setDifficulty(difficulty);
@@ -261,25 +343,42 @@ public class QuizService {
             List<QuizQuestion> newQuestions = quizQuestionService.getOrCreateQuiz(
                     quiz.getCategory(), difficulty, noOfQuestions
             );
+            // The replaced questions are orphans and get deleted with the save
+            quiz.getQuestions().stream().map(QuizQuestion::getId).forEach(replacedIds::add);
             quiz.getQuestions().clear();
             quiz.getQuestions().addAll(newQuestions);
         }
 
         Quiz updatedQuiz = quizDao.save(quiz);
+        duplicateIndex.removeAfterCommit(replacedIds);
+        duplicateIndex.addAfterCommit(updatedQuiz.getQuestions());
+        generationCache.evictPersisted(updatedQuiz.getQuestions());
+        answerKeyCache.invalidate(id);
 
         return updatedQuiz;
     }
 
     public void deleteQuiz(int id) {
+        List<Integer> questionIds = quizQuestionDao.findAnswerKeyByQuizId(id).stream()
+                .map(row -> (Integer) row[0])
+                .toList();
         quizDao.deleteById(id);
+        duplicateIndex.removeAfterCommit(questionIds);
+        answerKeyCache.invalidate(id);
     }
 
-    public Quiz addParticipant(int quizId, String userId) {
-        Quiz quiz = getQuizById(quizId);
-        if (!quiz.getParticipants().contains(userId)) {
-            quiz.getParticipants().add(userId);
-            return quizDao.save(quiz);
+    /**
+     * Adds the user to the quiz's participants. Returns false if they already were one.
+     */
+    @Transactional
+    public boolean addParticipant(int quizId, String userId) {
+        if (!quizDao.existsById(quizId)) {
+            throw new RuntimeException("Quiz not found with id: " + quizId);
         }
-        return quiz;
+        return quizDao.addParticipantIfAbsent(quizId, userId) > 0;
+    }
+
+    public boolean isParticipant(int quizId, String userId) {
+        return quizDao.isParticipant(quizId, userId);
     }
 }
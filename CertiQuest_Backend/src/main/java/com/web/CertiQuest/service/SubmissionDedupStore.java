@@ -0,0 +1,182 @@
+package com.web.CertiQuest.service;
+
+import com.web.CertiQuest.dao.QuizResultDao;
+import com.web.CertiQuest.dao.SubmissionKeyDao;
+import com.web.CertiQuest.model.QuizResult;
+import com.web.CertiQuest.model.SubmissionKey;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the result of each submission sent with an idempotency key, so a client
+ * retry gets the original result back instead of being charged and scored again.
+ *
+ * Recent results are kept in a bounded LRU ({@code quiz.submissions.idempotency.cache-size});
+ * older ones are found through quiz_results.submission_id, which is derived from the key.
+ * Write-behind submissions also reserve their id in submission_keys when they are charged
+ * (see reserve), which covers the time before the writer stores the result row.
+ * A key is honoured for {@code quiz.submissions.idempotency.ttl} after its first use.
+ */
+@Component
+public class SubmissionDedupStore {
+
+    @Autowired
+    private QuizResultDao quizResultDao;
+    @Autowired
+    private SubmissionKeyDao submissionKeyDao;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${quiz.submissions.idempotency.ttl:24h}")
+    private Duration ttl;
+
+    private final Map<String, QuizResult> recent;
+    private final Map<String, CompletableFuture<QuizResult>> inFlight = new ConcurrentHashMap<>();
+
+    public SubmissionDedupStore(@Value("${quiz.submissions.idempotency.cache-size:10000}") int maxEntries) {
+        this.recent = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, QuizResult> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    /**
+     * Submission id for a client key. Scoped to the user and quiz so that keys from
+     * different users can never collide.
+     */
+    public static String submissionId(String userId, int quizId, String idempotencyKey) {
+        try {
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            byte[] digest = sha256.digest((userId + "|" + quizId + "|" + idempotencyKey).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Returns the stored result for this submission id, or runs the submission and
+     * remembers its result. Concurrent calls with the same id wait for the first one.
+     */
+    public QuizResult submitOnce(String submissionId, Supplier<QuizResult> submission) {
+        Optional<QuizResult> previous = find(submissionId);
+        if (previous.isPresent()) {
+            return previous.get();
+        }
+
+        CompletableFuture<QuizResult> mine = new CompletableFuture<>();
+        CompletableFuture<QuizResult> running = inFlight.putIfAbsent(submissionId, mine);
+        if (running != null) {
+            meterRegistry.counter("quiz.submissions.idempotency", "result", "in-flight").increment();
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException re ? re : e;
+            }
+        }
+
+        try {
+            // Another request may have finished between find() and putIfAbsent()
+            QuizResult result = find(submissionId).orElse(null);
+            if (result == null) {
+                meterRegistry.counter("quiz.submissions.idempotency", "result", "miss").increment();
+                result = submission.get();
+                synchronized (recent) {
+                    recent.put(submissionId, result);
+                }
+            }
+            mine.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            // Nothing is remembered for a failed submission, so a retry runs it again
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(submissionId);
+        }
+    }
+
+    /**
+     * Reserves the result's submission id for a write-behind submission. Must run in the
+     * transaction that charges for it, so the reservation and the charge commit together.
+     * Empty if reserved now, otherwise the result of the request that reserved it first.
+     */
+    public Optional<QuizResult> reserve(QuizResult result) {
+        int reserved = submissionKeyDao.reserve(result.getSubmissionId(), result.getQuizId(), result.getUserId(),
+                result.getScore(), result.getTotalQuestions(), result.getAttemptedAt());
+        if (reserved > 0) {
+            return Optional.empty();
+        }
+
+        SubmissionKey key = submissionKeyDao.findById(result.getSubmissionId())
+                .orElseThrow(() -> new IllegalStateException("Submission " + result.getSubmissionId() + " was reserved but is gone"));
+        if (!key.getAttemptedAt().isAfter(Instant.now().minus(ttl))) {
+            throw new IllegalArgumentException("Idempotency key has expired, submit with a new key");
+        }
+        meterRegistry.counter("quiz.submissions.idempotency", "result", "hit-reserved").increment();
+        QuizResult original = new QuizResult();
+        original.setQuizId(key.getQuizId());
+        original.setUserId(key.getUserId());
+        original.setScore(key.getScore());
+        original.setTotalQuestions(key.getTotalQuestions());
+        original.setAttemptedAt(key.getAttemptedAt());
+        original.setSubmissionId(key.getSubmissionId());
+        return Optional.of(original);
+    }
+
+    // By then the writer has stored the result row, which answers any later retry
+    @Scheduled(fixedDelayString = "${quiz.submissions.idempotency.purge-interval-ms:3600000}")
+    public void purgeExpiredKeys() {
+        submissionKeyDao.deleteAttemptedBefore(Instant.now().minus(ttl));
+    }
+
+    private Optional<QuizResult> find(String submissionId) {
+        Instant cutoff = Instant.now().minus(ttl);
+
+        QuizResult cached;
+        synchronized (recent) {
+            cached = recent.get(submissionId);
+        }
+        if (cached != null) {
+            if (cached.getAttemptedAt().isAfter(cutoff)) {
+                meterRegistry.counter("quiz.submissions.idempotency", "result", "hit-memory").increment();
+                return Optional.of(cached);
+            }
+            synchronized (recent) {
+                recent.remove(submissionId);
+            }
+        }
+
+        Optional<QuizResult> stored = quizResultDao.findBySubmissionId(submissionId);
+        if (stored.isEmpty()) {
+            return Optional.empty();
+        }
+        if (!stored.get().getAttemptedAt().isAfter(cutoff)) {
+            throw new IllegalArgumentException("Idempotency key has expired, submit with a new key");
+        }
+        meterRegistry.counter("quiz.submissions.idempotency", "result", "hit-db").increment();
+        synchronized (recent) {
+            recent.put(submissionId, stored.get());
+        }
+        return stored;
+    }
+}
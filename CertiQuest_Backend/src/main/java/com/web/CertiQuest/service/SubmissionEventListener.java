@@ -0,0 +1,48 @@
+package com.web.CertiQuest.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.web.CertiQuest.model.QuizSubmissionEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Consumes published submissions in batches of up to
+ * {@code spring.kafka.consumer.max-poll-records} and writes each batch at once.
+ * Events that cannot be parsed or stored are dead-lettered by SubmissionWriter. A batch
+ * only fails when the database is unavailable; it is then redelivered until it goes
+ * through, and already written submissions are skipped by id.
+ */
+@Component
+@ConditionalOnProperty(name = "quiz.submissions.mode", havingValue = "kafka")
+public class SubmissionEventListener {
+
+    @Autowired
+    private SubmissionWriter submissionWriter;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // The container factory retries failed batches until they go through (see KafkaConfig)
+    @KafkaListener(topics = "${quiz.submissions.topic:quiz-submissions}",
+            groupId = "${quiz.submissions.group-id:certiquest-submissions}",
+            containerFactory = "submissionListenerContainerFactory",
+            batch = "true")
+    public void onSubmissions(List<String> payloads) {
+        List<QuizSubmissionEvent> events = new ArrayList<>(payloads.size());
+        for (String payload : payloads) {
+            try {
+                events.add(objectMapper.readValue(payload, QuizSubmissionEvent.class));
+            } catch (JsonProcessingException e) {
+                submissionWriter.deadLetter(payload, null, e);
+            }
+        }
+        if (!events.isEmpty()) {
+            submissionWriter.writeOrDeadLetter(events);
+        }
+    }
+}
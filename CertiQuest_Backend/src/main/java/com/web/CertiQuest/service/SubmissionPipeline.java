@@ -0,0 +1,144 @@
+package com.web.CertiQuest.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.web.CertiQuest.model.QuizSubmissionEvent;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hands scored submissions to SubmissionWriter, depending on {@code quiz.submissions.mode}:
+ * <ul>
+ *   <li>{@code sync} (default): not used, QuizService saves the result on the request thread</li>
+ *   <li>{@code kafka}: published as JSON to {@code quiz.submissions.topic}, keyed by quiz id,
+ *       and written by SubmissionEventListener</li>
+ *   <li>{@code in-process}: queued in memory and written every {@code quiz.submissions.flush-interval-ms},
+ *       for running locally without a broker</li>
+ * </ul>
+ * If the broker does not acknowledge in time or the queue is full, the submission is
+ * written on the spot, so an accepted submission is never dropped. Submissions that
+ * cannot be written go to the dead-letter table (see SubmissionWriter).
+ */
+@Service
+public class SubmissionPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(SubmissionPipeline.class);
+
+    @Autowired
+    private SubmissionWriter submissionWriter;
+    @Autowired
+    private KafkaTemplate<String, String> kafkaTemplate;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${quiz.submissions.mode:sync}")
+    private String mode;
+    @Value("${quiz.submissions.topic:quiz-submissions}")
+    private String topic;
+    @Value("${quiz.submissions.send-timeout-ms:2000}")
+    private long sendTimeoutMs;
+    @Value("${quiz.submissions.batch-size:500}")
+    private int batchSize;
+
+    private final BlockingQueue<QuizSubmissionEvent> queue;
+    // A drained batch that could not be written or dead-lettered; retried before anything else
+    private final List<QuizSubmissionEvent> unwritten = new ArrayList<>();
+
+    public SubmissionPipeline(@Value("${quiz.submissions.queue-capacity:10000}") int queueCapacity) {
+        this.queue = new LinkedBlockingQueue<>(queueCapacity);
+    }
+
+    @PostConstruct
+    void init() {
+        mode = mode.trim().toLowerCase(Locale.ROOT);
+        if (!mode.equals("sync") && !mode.equals("kafka") && !mode.equals("in-process")) {
+            throw new IllegalArgumentException("Unknown quiz.submissions.mode: " + mode);
+        }
+        Gauge.builder("quiz.submissions.queue.depth", queue, BlockingQueue::size).register(meterRegistry);
+        logger.info("Quiz submissions are written in {} mode", mode);
+    }
+
+    public boolean isWriteBehind() {
+        return !mode.equals("sync");
+    }
+
+    public void publish(QuizSubmissionEvent event) {
+        boolean handedOff = mode.equals("kafka") ? send(event) : queue.offer(event);
+        if (handedOff) {
+            meterRegistry.counter("quiz.submissions.published", "mode", mode).increment();
+            return;
+        }
+        meterRegistry.counter("quiz.submissions.inline").increment();
+        submissionWriter.writeOrDeadLetter(List.of(event));
+    }
+
+    private boolean send(QuizSubmissionEvent event) {
+        try {
+            String payload = objectMapper.writeValueAsString(event);
+            kafkaTemplate.send(topic, String.valueOf(event.getQuizId()), payload)
+                    .get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize submission " + event.getSubmissionId(), e);
+        } catch (Exception e) {
+            logger.warn("Could not publish submission {} to {}, writing it directly: {}",
+                    event.getSubmissionId(), topic, e.getMessage());
+            return false;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${quiz.submissions.flush-interval-ms:200}")
+    public synchronized void flush() {
+        if (!unwritten.isEmpty()) {
+            if (!write(unwritten)) return;
+            unwritten.clear();
+        }
+
+        List<QuizSubmissionEvent> batch = new ArrayList<>(Math.min(batchSize, queue.size()));
+        while (queue.drainTo(batch, batchSize) > 0) {
+            if (!write(batch)) {
+                // Kept aside rather than re-queued, so nothing is lost to a full queue
+                unwritten.addAll(batch);
+                return;
+            }
+            batch.clear();
+        }
+    }
+
+    private boolean write(List<QuizSubmissionEvent> batch) {
+        try {
+            submissionWriter.writeOrDeadLetter(batch);
+            return true;
+        } catch (RuntimeException e) {
+            // The submission ids make the retry safe for events that did get written
+            logger.error("Failed to write {} quiz results, retrying on the next flush", batch.size(), e);
+            return false;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+}
@@ -0,0 +1,155 @@
+package com.web.CertiQuest.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.web.CertiQuest.dao.QuizSubmissionDeadLetterDao;
+import com.web.CertiQuest.model.QuizSubmissionDeadLetter;
+import com.web.CertiQuest.model.QuizSubmissionEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Stores scored submissions in batches: one batched insert into quiz_results and
+ * one statement for new quiz participants, in a single transaction. The leaderboards are
+ * queries over quiz_results, so they pick the new rows up from there.
+ *
+ * Plain JDBC batches are used because QuizResult ids are IDENTITY columns, which
+ * stop Hibernate from batching its inserts.
+ *
+ * The pipeline writes through writeOrDeadLetter, so one bad submission ends up in
+ * quiz_submission_dead_letters instead of failing its whole batch over and over.
+ */
+@Service
+public class SubmissionWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(SubmissionWriter.class);
+
+    private static final String INSERT_RESULT = """
+            INSERT INTO quiz_results (quiz_id, user_id, score, total_questions, attempted_at, submission_id)
+            VALUES (?, ?, ?, ?, ?, ?)
+            ON CONFLICT (submission_id) DO NOTHING""";
+
+    // All (quiz, participant) pairs of a batch in one statement, passed as two parallel arrays.
+    // Pairs that already exist are skipped and each quiz's count grows by the rows actually added.
+    private static final String INSERT_PARTICIPANTS = """
+            WITH added AS (
+                INSERT INTO quiz_participants (quiz_id, participant_id)
+                SELECT t.quiz_id, t.participant_id
+                FROM unnest(?::int[], ?::text[]) AS t(quiz_id, participant_id)
+                ON CONFLICT (quiz_id, participant_id) DO NOTHING
+                RETURNING quiz_id
+            )
+            UPDATE quiz q SET participant_count = q.participant_count + a.n
+            FROM (SELECT quiz_id, count(*) AS n FROM added GROUP BY quiz_id) a
+            WHERE q.id = a.quiz_id""";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private QuizSubmissionDeadLetterDao deadLetterDao;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * Writes the batch, or if that fails, each event on its own, dead-lettering the ones
+     * that still fail. Throws only when an event can be neither written nor dead-lettered
+     * (the database is unavailable); the caller must then keep the whole batch and retry,
+     * which is safe because results are keyed by submission id.
+     */
+    public void writeOrDeadLetter(List<QuizSubmissionEvent> events) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> writeBatch(events));
+            return;
+        } catch (RuntimeException e) {
+            logger.warn("Batch of {} quiz results failed, writing them one by one: {}", events.size(), e.getMessage());
+        }
+
+        for (QuizSubmissionEvent event : events) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> writeBatch(List.of(event)));
+            } catch (RuntimeException e) {
+                deadLetter(toJson(event), event.getSubmissionId(), e);
+            }
+        }
+    }
+
+    /**
+     * Records a submission that cannot be stored. Payload is the event JSON, or the raw
+     * message if it could not be parsed.
+     */
+    public void deadLetter(String payload, String submissionId, Exception error) {
+        if (submissionId != null && deadLetterDao.existsBySubmissionId(submissionId)) return;
+
+        QuizSubmissionDeadLetter deadLetter = new QuizSubmissionDeadLetter();
+        deadLetter.setSubmissionId(submissionId);
+        deadLetter.setPayload(payload);
+        String message = error.getClass().getSimpleName() + ": " + error.getMessage();
+        deadLetter.setError(message.length() > 2000 ? message.substring(0, 2000) : message);
+        deadLetter.setFailedAt(Instant.now());
+        deadLetterDao.save(deadLetter);
+
+        meterRegistry.counter("quiz.submissions.dead-lettered").increment();
+        logger.error("Dead-lettered quiz submission {}: {}", submissionId, message);
+    }
+
+    private String toJson(QuizSubmissionEvent event) {
+        try {
+            return objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            return event.toString();
+        }
+    }
+
+    // Runs in the caller's transaction: writeOrDeadLetter's template, or BulkGradingService's
+    public void writeBatch(List<QuizSubmissionEvent> events) {
+        if (events.isEmpty()) return;
+
+        List<Object[]> results = new ArrayList<>(events.size());
+        Map<String, QuizSubmissionEvent> participants = new LinkedHashMap<>();
+        for (QuizSubmissionEvent event : events) {
+            results.add(new Object[]{
+                    event.getQuizId(), event.getUserId(), event.getScore(), event.getTotalQuestions(),
+                    Timestamp.from(event.getAttemptedAt()), event.getSubmissionId()
+            });
+            participants.putIfAbsent(event.getQuizId() + "|" + event.getUserId(), event);
+        }
+
+        int[] inserted = jdbcTemplate.batchUpdate(INSERT_RESULT, results);
+
+        Integer[] quizIds = participants.values().stream().map(QuizSubmissionEvent::getQuizId).toArray(Integer[]::new);
+        String[] userIds = participants.values().stream().map(QuizSubmissionEvent::getUserId).toArray(String[]::new);
+        jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement(INSERT_PARTICIPANTS);
+            ps.setArray(1, con.createArrayOf("integer", quizIds));
+            ps.setArray(2, con.createArrayOf("text", userIds));
+            return ps;
+        });
+
+        int written = 0;
+        for (int count : inserted) {
+            if (count > 0) written++;
+        }
+        meterRegistry.counter("quiz.submissions.written").increment(written);
+        if (written < events.size()) {
+            meterRegistry.counter("quiz.submissions.duplicates").increment(events.size() - written);
+        }
+        logger.debug("Wrote {} quiz results ({} duplicates skipped)", written, events.size() - written);
+    }
+}
@@ -1,12 +1,17 @@
 package com.web.CertiQuest.service;
 
+import com.web.CertiQuest.dao.PointsTransactionDao;
 import com.web.CertiQuest.dao.UserPointsDao;
-import com.web.CertiQuest.model.UserPoints;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.Optional;
 
 @Service
@@ -17,88 +22,111 @@ public class UserPointsService {
     @Autowired
     private UserPointsDao repo;
     @Autowired
-    private ProfileService profileService;
+    private PointsBalanceCache balanceCache;
+    @Autowired
+    private PointsTransactionDao transactionDao;
+    @Autowired
+    private MeterRegistry meterRegistry;
 
     // Default values
     private static final int DEFAULT_POINTS = 10;
     private static final String DEFAULT_PLAN = "FREE";
 
 
-    private UserPoints createInitialPoints(String clerkId) {
-        UserPoints userPoints = new UserPoints();
-        userPoints.setClerkId(clerkId);
-        userPoints.setPoints(DEFAULT_POINTS);
-        userPoints.setPlan(DEFAULT_PLAN);
-        logger.info("Created initial UserPoints for clerkId {}: {}", clerkId, userPoints);
-        return repo.save(userPoints);
-    }
-
-    public UserPoints getUserPoints(String clerkId) {
-        return repo.findByClerkId(clerkId)
-                .orElseGet(() -> createInitialPoints(clerkId));
+    // The opening balance is a ledger entry like any other, so the log sums to the balance.
+    // Safe to race: a second request for a new user finds the account the first one created.
+    private void createInitialPoints(String clerkId) {
+        if (repo.createIfAbsent(clerkId, DEFAULT_POINTS, DEFAULT_PLAN) > 0) {
+            logger.info("Created initial points account for clerkId {}: {} points, plan {}",
+                    clerkId, DEFAULT_POINTS, DEFAULT_PLAN);
+        }
     }
 
-    public Optional<UserPoints> getUserPointsForCurrentUser() {
-        var profile = profileService.getCurrentProfile();
-        if (profile == null) {
+    /**
+     * The current user's balance and plan, from the cache when possible. A user without
+     * a points account gets the initial one. Empty if nobody is signed in.
+     */
+    public Optional<PointsBalanceCache.Balance> getBalanceForCurrentUser() {
+        String clerkId = currentClerkId();
+        if (clerkId == null) {
             logger.warn("Attempted to get points for unauthenticated user");
             return Optional.empty();
         }
-        return Optional.of(getUserPoints(profile.getClerkId()));
+        return Optional.of(getBalance(clerkId));
+    }
+
+    public PointsBalanceCache.Balance getBalance(String clerkId) {
+        return balanceCache.get(clerkId).orElseGet(() -> {
+            createInitialPoints(clerkId);
+            return balanceCache.get(clerkId)
+                    .orElseThrow(() -> new IllegalStateException("No points account for " + clerkId));
+        });
     }
 
     public boolean hasEnoughPoints(int requiredPoints) {
-        return getUserPointsForCurrentUser()
-                .map(up -> up.getPoints() >= requiredPoints)
+        return getBalanceForCurrentUser()
+                .map(balance -> balance.points() >= requiredPoints)
                 .orElse(false);
     }
 
-    public Optional<UserPoints> consumePoints(int requiredPoints) {
-        var profile = profileService.getCurrentProfile();
-        if (profile == null) {
+    /**
+     * Deducts points from the current user if the balance allows it, as one conditional
+     * update that also appends to the ledger. Returns the new balance, or empty if the
+     * balance is too low or the user is not signed in.
+     */
+    @Transactional
+    public Optional<Integer> consumePoints(int requiredPoints) {
+        String clerkId = currentClerkId();
+        if (clerkId == null) {
             logger.warn("Cannot consume points for unauthenticated user");
             return Optional.empty();
         }
 
-        String clerkId = profile.getClerkId();
-        Optional<UserPoints> optionalUserPoints = repo.findByClerkId(clerkId);
-
-        if (optionalUserPoints.isEmpty()) {
-            logger.warn("No UserPoints found for clerkId {} to consume", clerkId);
+        List<Object[]> debited = transactionDao.debit(clerkId, requiredPoints, "CONSUME");
+        if (debited.isEmpty()) {
+            meterRegistry.counter("points.debits", "result", "rejected").increment();
+            logger.info("User {} has insufficient points (needed {}) or no points account", clerkId, requiredPoints);
             return Optional.empty();
         }
 
-        UserPoints userPoints = optionalUserPoints.get();
+        meterRegistry.counter("points.debits", "result", "ok").increment();
+        int balance = cacheAfterCommit(clerkId, debited.get(0));
+        logger.info("Consumed {} points for user {}, new balance: {}", requiredPoints, clerkId, balance);
+        return Optional.of(balance);
+    }
 
-        if (userPoints.getPoints() < requiredPoints) {
-            logger.info("User {} has insufficient points (needed {}, has {})",
-                    clerkId, requiredPoints, userPoints.getPoints());
-            return Optional.empty();
+    /**
+     * Adds points and optionally changes the plan. Returns the new balance.
+     */
+    @Transactional
+    public int addPoints(String clerkId, int pointsToAdd, String plan) {
+        String newPlan = plan == null ? "" : plan;
+        List<Object[]> credited = transactionDao.credit(clerkId, pointsToAdd, newPlan, "PURCHASE");
+        if (credited.isEmpty()) {
+            createInitialPoints(clerkId);
+            credited = transactionDao.credit(clerkId, pointsToAdd, newPlan, "PURCHASE");
+        }
+        if (credited.isEmpty()) {
+            throw new IllegalStateException("No points account for " + clerkId);
         }
 
-        // Deduct required points
-        userPoints.setPoints(userPoints.getPoints() - requiredPoints);
-        UserPoints updatedUserPoints = repo.save(userPoints);
-
-        logger.info("Consumed {} points for user {}, new balance: {}",
-                requiredPoints, clerkId, updatedUserPoints.getPoints());
+        int newBalance = cacheAfterCommit(clerkId, credited.get(0));
 
-        return Optional.of(updatedUserPoints);
+        logger.info("Added {} points to user {}, new balance: {}, plan set to {}",
+                pointsToAdd, clerkId, newBalance, newPlan.isBlank() ? "(unchanged)" : newPlan);
+        return newBalance;
     }
 
-    public void addPoints(String clerkId, int pointsToAdd, String plan) {
-        UserPoints userPoints = repo.findByClerkId(clerkId)
-                .orElseGet(() -> createInitialPoints(clerkId));
-
-        userPoints.setPoints(userPoints.getPoints() + pointsToAdd);
-
-        if (plan != null && !plan.isBlank()) {
-            userPoints.setPlan(plan);
-        }
-
-        logger.info("Added {} points to user {}, new balance: {}, plan set to {}",
-                pointsToAdd, clerkId, userPoints.getPoints(), userPoints.getPlan());
+    // Hands a (ledger id, points, plan) row from debit or credit to the cache; returns the points
+    private int cacheAfterCommit(String clerkId, Object[] row) {
+        PointsBalanceCache.Balance balance = new PointsBalanceCache.Balance(((Number) row[1]).intValue(), (String) row[2]);
+        balanceCache.putAfterCommit(clerkId, balance, ((Number) row[0]).longValue());
+        return balance.points();
+    }
 
-        repo.save(userPoints);
+    // The authenticated user's id, without loading their profile
+    private String currentClerkId() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication == null ? null : authentication.getName();
     }
 }
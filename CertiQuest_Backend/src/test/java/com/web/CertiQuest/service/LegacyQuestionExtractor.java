@@ -0,0 +1,80 @@
+package com.web.CertiQuest.service;
+
+import com.web.CertiQuest.model.QuizQuestion;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * The regex-based extractQuestionsFromText that QuestionTextExtractor replaced,
+ * kept verbatim as the reference for equivalence tests and benchmarks.
+ */
+final class LegacyQuestionExtractor {
+
+    private LegacyQuestionExtractor() {
+    }
+
+    static List<QuizQuestion> extract(String pdfText, String category, String difficulty) {
+        List<QuizQuestion> extracted = new ArrayList<>();
+        // Split by pages using form-feed or multiple newlines (covers most PDF text extractors)
+        String[] pages = pdfText.split("\\f|\\r?\\n\\s*\\r?\\n+");
+
+        for (String page : pages) {
+            // Split questions per page using patterns like "1." or "Question 1"
+            String[] parts = page.split("(?i)(?:^|\\s)question\\s*\\d+[:.-]|(?:^|\\s)\\d+\\.\\s+");
+            for (String part : parts) {
+                if (part.trim().isEmpty()) continue;
+
+                QuizQuestion q = new QuizQuestion();
+                q.setCategory(category);
+                q.setDifficultyLevel(difficulty);
+
+                // Try to separate question and options
+                String[] lines = part.trim().split("\\r?\\n");
+                // Find the first non-option, non-answer line as the question
+                String questionText = Arrays.stream(lines)
+                        .filter(l -> !l.trim().isEmpty() && !l.matches("^[A-Da-d][\\).].*") && !l.toLowerCase().contains("answer:"))
+                        .findFirst()
+                        .orElse("Sample question");
+                q.setQuestion(questionText.trim());
+
+                // Extract options: lines starting with A/B/C/D or similar
+                List<String> opts = Arrays.stream(lines)
+                        .filter(l -> l.matches("^[A-Da-d1-4][\\).>].*"))  // accept options starting with A-D, a-d, 1-4 followed by ), ., or >
+                        .map(l -> l.replaceFirst("^[A-Da-d1-4][\\).>]+\\s*", ""))  // remove prefix + whitespace
+                        .collect(Collectors.toList());
+                // Ensure 4 options
+                if (opts.size() < 4) {
+                    opts = List.of("Option A", "Option B", "Option C", "Option D");
+                }
+                q.setOptions(opts);
+
+                // Extract correct answer
+                List<String> finalOpts = opts;
+                String correct = Arrays.stream(lines)
+                        .filter(l -> l.toLowerCase().contains("answer:"))
+                        .findFirst()
+                        .map(l -> {
+                            String s = l.substring(l.toLowerCase().indexOf("answer:") + 7).trim();
+                            // Remove leading label such as 'b)', 'a.', '1.' if present
+                            s = s.replaceFirst("^[\\dA-Da-d][\\).>\\]]?\\s*", "");
+                            // Try to match single letter answer to option text
+                            if (s.matches("^[A-Da-d]$")) {
+                                int idx = "ABCD".indexOf(s.toUpperCase());
+                                return idx >= 0 && idx < finalOpts.size() ? finalOpts.get(idx) : finalOpts.get(0);
+                            } else {
+                                return s;
+                            }
+                        })
+                        .orElse(opts.get(0));
+                q.setCorrectAnswer(correct);
+
+                extracted.add(q);
+            }
+        }
+
+        return extracted;
+    }
+}
@@ -0,0 +1,55 @@
+package com.web.CertiQuest.service;
+
+import com.web.CertiQuest.model.QuizQuestion;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the regex cascade with QuestionTextExtractor on the test corpus
+ * repeated to document sizes seen in practice (one repetition is about a page).
+ *
+ * Run with:
+ * mvn test-compile dependency:build-classpath -Dmdep.outputFile=target/test.classpath
+ * java -cp target/test-classes:target/classes:$(cat target/test.classpath) org.openjdk.jmh.Main QuestionTextExtractorBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QuestionTextExtractorBenchmark {
+
+    @Param({"10", "100", "300"})
+    private int pages;
+
+    private String text;
+
+    @Setup
+    public void loadCorpus() throws IOException {
+        text = (QuestionTextExtractorTests.loadCorpus() + "\f").repeat(pages);
+    }
+
+    @Benchmark
+    public List<QuizQuestion> regexCascade() {
+        return LegacyQuestionExtractor.extract(text, "General", "Medium");
+    }
+
+    @Benchmark
+    public List<QuizQuestion> singlePass() {
+        return QuestionTextExtractor.extract(text, "General", "Medium");
+    }
+}
@@ -0,0 +1,105 @@
+package com.web.CertiQuest.service;
+
+import com.web.CertiQuest.model.QuizQuestion;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class QuestionTextExtractorTests {
+
+    // Fragments that exercise page breaks, question markers, option labels and answers
+    private static final String[] FRAGMENTS = {
+            "1. ", "12.", "3.\n", " 4. ", "Question 5:", "question6-", "QUESTION  7.", "Question\n8:", "question x",
+            "A) ", "b. ", "C> ", "d)", "1) ", "4> ", "E) ", "a)", "B.\r",
+            "Answer: ", "answer:b", "ANSWER: c) ", "Answer: 2.", "answer: ]", "Correct answer: ",
+            "What is", " the value", " Paris", " Berlin", "O(log n)", "x", "?",
+            "\n", "\n", "\n", "\r\n", "\n\n", "\n \n", "\n\t\n\n", "\r\n\r\n", "\f", " ", "  ", "\t",
+            "\u000B", "\u0085", "\u2028", " ", "\u001C", "\u0130",
+    };
+
+    @Test
+    void corpusMatchesLegacyExtractor() throws IOException {
+        String corpus = loadCorpus();
+        assertSameQuestions(corpus);
+        assertSameQuestions(corpus.replace("\n", "\r\n"));
+        assertSameQuestions(corpus.replace("\n\n", "\f"));
+    }
+
+    @Test
+    void edgeCasesMatchLegacyExtractor() {
+        String[] inputs = {
+                "", " ", "\n\n", "\f", "1.", "1. ", "1.\n\n2. x", "Question 1:", "question1-\n\nA) a",
+                "What?\nA) a\nB) b\nC) c\nD) d\nAnswer: B",
+                "What?\nA) a\nB) b\nC) c\nD) d\nAnswer: b) b",
+                "What?\nA) a\nB) b\nC) c\nD) d\nE) e\nAnswer: d",
+                "A) only options\nB) b",
+                "Answer: first\nAnswer: second",
+                "x\n\u001C\ny",
+                "\u0130 answer: \u0130x",
+                "Question 1:What\r\rA) a\r\nb) b",
+        };
+        for (String input : inputs) {
+            assertSameQuestions(input);
+        }
+    }
+
+    @Test
+    void randomDocumentsMatchLegacyExtractor() {
+        Random random = new Random(42);
+        for (int doc = 0; doc < 20_000; doc++) {
+            StringBuilder text = new StringBuilder();
+            int fragments = random.nextInt(40);
+            for (int i = 0; i < fragments; i++) {
+                text.append(FRAGMENTS[random.nextInt(FRAGMENTS.length)]);
+            }
+            assertSameQuestions(text.toString());
+        }
+    }
+
+    private static void assertSameQuestions(String text) {
+        List<String> expected = describe(() -> LegacyQuestionExtractor.extract(text, "General", "Medium"));
+        List<String> actual = describe(() -> QuestionTextExtractor.extract(text, "General", "Medium"));
+        assertEquals(expected, actual, () -> "Mismatch for input: " + escape(text));
+    }
+
+    // Failures count as output too: both must fail the same way on the same input
+    private static List<String> describe(Supplier<List<QuizQuestion>> extraction) {
+        try {
+            return describe(extraction.get());
+        } catch (RuntimeException e) {
+            return List.of(e.getClass().getName());
+        }
+    }
+
+    private static List<String> describe(List<QuizQuestion> questions) {
+        return questions.stream()
+                .map(q -> q.getCategory() + "|" + q.getDifficultyLevel() + "|" + q.getQuestion()
+                        + "|" + q.getOptions() + "|" + q.getCorrectAnswer())
+                .toList();
+    }
+
+    private static String escape(String text) {
+        StringBuilder escaped = new StringBuilder();
+        for (char c : text.toCharArray()) {
+            if (c < ' ' || c > '~') {
+                escaped.append(String.format("\\u%04X", (int) c));
+            } else {
+                escaped.append(c);
+            }
+        }
+        return escaped.toString();
+    }
+
+    static String loadCorpus() throws IOException {
+        try (InputStream in = QuestionTextExtractorTests.class.getResourceAsStream("/question-corpus.txt")) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}